@@ -0,0 +1,54 @@
+package name.brian_gordon.collections.queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of a burst of adds into a fresh, empty queue, followed by removing all of them. This is dominated by how the
+ * queue grows: the array-backed queues copy everything each time they double, SegmentedArrayQueue links on chunks, and
+ * the linked queues allocate a node per element.
+ *
+ * @author Brian Gordon
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BurstResizeBenchmark {
+    @Param({
+            "ArrayQueue", "LinkedQueue", "SynchronizedArrayQueue", "BlockingArrayQueue", "LockFreeLinkedQueue",
+            "SegmentedArrayQueue"
+    })
+    public String implementation;
+
+    @Param({"1000", "100000"})
+    public int burstSize;
+
+    @Benchmark
+    public Integer burst() {
+        // Bound BlockingArrayQueue at the burst size, so that it still has room for the whole burst but starts out at
+        // its default size and grows like the others.
+        Queue<Integer> queue = QueueBenchmarks.make(implementation, burstSize);
+        for(int i=0; i<burstSize; i++) {
+            queue.add(QueueBenchmarks.ELEMENT);
+        }
+
+        Integer last = null;
+        for(int i=0; i<burstSize; i++) {
+            last = queue.remove();
+        }
+        return last;
+    }
+}
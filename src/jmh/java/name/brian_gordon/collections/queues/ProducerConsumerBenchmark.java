@@ -0,0 +1,149 @@
+package name.brian_gordon.collections.queues;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of producer threads and consumer threads sharing one queue, at 1:1, 3:1 and 2:2. Use -tg to try other
+ * ratios, e.g. -tg 4,4 for the manyToMany group.
+ *
+ * Failed offers and removes that find the queue empty still count as operations in the primary result, so look at the
+ * secondary "offered" and "removed" counters for the number of elements which actually went through the queue.
+ *
+ * The unbounded implementations would grow for as long as producers outrun consumers, so producers are paced: once the
+ * backlog reaches QueueBenchmarks.CAPACITY, they stop offering and count a failed offer instead, just as they would
+ * against a full bounded queue. Each thread only publishes its progress every PACING_BATCH elements, so the shared
+ * counters are rarely written. Each iteration also starts with a fresh queue.
+ *
+ * @author Brian Gordon
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ProducerConsumerBenchmark {
+    @Param({
+            "SynchronizedArrayQueue", "LockFreeArrayQueue", "BlockingArrayQueue", "LockFreeLinkedQueue",
+            "StripedQueue", "AsyncQueue"
+    })
+    public String implementation;
+
+    // How many elements each thread moves before adding them to the shared totals.
+    private static final int PACING_BATCH = 1024;
+
+    private Queue<Integer> queue;
+
+    // The elements offered and removed by the whole group, as of each thread's last published batch.
+    private final AtomicLong offeredTotal = new AtomicLong();
+    private final AtomicLong removedTotal = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        queue = QueueBenchmarks.make(implementation);
+        offeredTotal.set(0);
+        removedTotal.set(0);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long offered;
+        public long offerFailed;
+        public long removed;
+        public long removeFailed;
+
+        // Elements moved since this thread last added to the shared totals. Not public, so JMH doesn't report it.
+        private int unpublished;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            unpublished = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("oneToOne")
+    @GroupThreads(1)
+    public void oneToOneProducer(Counters counters) {
+        produce(counters);
+    }
+
+    @Benchmark
+    @Group("oneToOne")
+    @GroupThreads(1)
+    public void oneToOneConsumer(Counters counters) {
+        consume(counters);
+    }
+
+    @Benchmark
+    @Group("manyToOne")
+    @GroupThreads(3)
+    public void manyToOneProducer(Counters counters) {
+        produce(counters);
+    }
+
+    @Benchmark
+    @Group("manyToOne")
+    @GroupThreads(1)
+    public void manyToOneConsumer(Counters counters) {
+        consume(counters);
+    }
+
+    @Benchmark
+    @Group("manyToMany")
+    @GroupThreads(2)
+    public void manyToManyProducer(Counters counters) {
+        produce(counters);
+    }
+
+    @Benchmark
+    @Group("manyToMany")
+    @GroupThreads(2)
+    public void manyToManyConsumer(Counters counters) {
+        consume(counters);
+    }
+
+    private void produce(Counters counters) {
+        if(offeredTotal.get() - removedTotal.get() >= QueueBenchmarks.CAPACITY) {
+            counters.offerFailed++;
+        } else if(queue.offer(QueueBenchmarks.ELEMENT)) {
+            counters.offered++;
+            if(++counters.unpublished == PACING_BATCH) {
+                offeredTotal.addAndGet(PACING_BATCH);
+                counters.unpublished = 0;
+            }
+        } else {
+            counters.offerFailed++;
+        }
+    }
+
+    private void consume(Counters counters) {
+        if(queue.remove() != null) {
+            counters.removed++;
+            if(++counters.unpublished == PACING_BATCH) {
+                removedTotal.addAndGet(PACING_BATCH);
+                counters.unpublished = 0;
+            }
+        } else {
+            counters.removeFailed++;
+        }
+    }
+}
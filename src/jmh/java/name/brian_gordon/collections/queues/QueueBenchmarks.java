@@ -0,0 +1,58 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.Comparator;
+
+/**
+ * Makes queues for the benchmarks, by class name, so that each benchmark can take the implementation as a JMH @Param.
+ *
+ * @author Brian Gordon
+ */
+final class QueueBenchmarks {
+    // Every benchmark adds this same element over and over, so that the only allocation measured by -prof gc is the
+    // queue's own.
+    static final Integer ELEMENT = 42;
+
+    // The capacity of the bounded implementations, unless a benchmark asks for another one.
+    static final int CAPACITY = 1 << 16;
+
+    private QueueBenchmarks() {
+    }
+
+    static Queue<Integer> make(String implementation) {
+        return make(implementation, CAPACITY);
+    }
+
+    /**
+     * @param capacity The capacity of the bounded implementations. The others ignore it and start at their default size.
+     */
+    static Queue<Integer> make(String implementation, int capacity) {
+        switch(implementation) {
+            case "ArrayQueue":
+                return new ArrayQueue<>();
+            case "LinkedQueue":
+                return new LinkedQueue<>();
+            case "SynchronizedArrayQueue":
+                return new SynchronizedArrayQueue<>();
+            case "LockFreeArrayQueue":
+                return new LockFreeArrayQueue<>(capacity);
+            case "SpscArrayQueue":
+                return new SpscArrayQueue<>(capacity);
+            case "BlockingArrayQueue":
+                return new BlockingArrayQueue<>(capacity);
+            case "LockFreeLinkedQueue":
+                return new LockFreeLinkedQueue<>();
+            case "SegmentedArrayQueue":
+                return new SegmentedArrayQueue<>();
+            case "StripedQueue":
+                return new StripedQueue<>();
+            case "AsyncQueue":
+                return new AsyncQueue<>();
+            case "InstrumentedQueue":
+                return new InstrumentedQueue<>(new LockFreeLinkedQueue<>(), new QueueMetrics("benchmark"));
+            case "HeapPriorityQueue":
+                return new HeapPriorityQueue<>(Comparator.naturalOrder());
+            default:
+                throw new IllegalArgumentException("Unknown queue implementation " + implementation + ".");
+        }
+    }
+}
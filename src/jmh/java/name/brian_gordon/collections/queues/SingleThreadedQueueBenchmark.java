@@ -0,0 +1,71 @@
+package name.brian_gordon.collections.queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a single thread adding to and removing from a queue that stays at a steady size, one element at a time
+ * and in batches.
+ *
+ * @author Brian Gordon
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SingleThreadedQueueBenchmark {
+    private static final int BATCH_SIZE = 64;
+
+    @Param({
+            "ArrayQueue", "LinkedQueue", "SynchronizedArrayQueue", "LockFreeArrayQueue", "SpscArrayQueue",
+            "BlockingArrayQueue", "LockFreeLinkedQueue", "SegmentedArrayQueue", "StripedQueue", "AsyncQueue",
+            "InstrumentedQueue", "HeapPriorityQueue"
+    })
+    public String implementation;
+
+    // How many elements sit in the queue throughout the benchmark.
+    @Param({"0", "1000"})
+    public int depth;
+
+    private Queue<Integer> queue;
+
+    private final Integer[] batch = new Integer[BATCH_SIZE];
+    private final Integer[] target = new Integer[BATCH_SIZE];
+
+    @Setup
+    public void setup() {
+        queue = QueueBenchmarks.make(implementation);
+        for(int i=0; i<depth; i++) {
+            queue.add(QueueBenchmarks.ELEMENT);
+        }
+        Arrays.fill(batch, QueueBenchmarks.ELEMENT);
+    }
+
+    @Benchmark
+    public Integer addRemove() {
+        queue.add(QueueBenchmarks.ELEMENT);
+        return queue.remove();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int addAllDrainTo() {
+        queue.addAll(batch);
+        return queue.drainTo(target, BATCH_SIZE);
+    }
+}
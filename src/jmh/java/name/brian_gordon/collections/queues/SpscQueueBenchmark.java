@@ -0,0 +1,68 @@
+package name.brian_gordon.collections.queues;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One producer and one consumer, comparing SpscArrayQueue against the multi-producer queues doing the same job. This
+ * is separate from ProducerConsumerBenchmark because SpscArrayQueue can't take part in the other groups.
+ *
+ * @author Brian Gordon
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class SpscQueueBenchmark {
+    @Param({"SpscArrayQueue", "LockFreeArrayQueue", "BlockingArrayQueue"})
+    public String implementation;
+
+    private Queue<Integer> queue;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        queue = QueueBenchmarks.make(implementation);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long offered;
+        public long removed;
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public void producer(Counters counters) {
+        if(queue.offer(QueueBenchmarks.ELEMENT)) {
+            counters.offered++;
+        }
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public void consumer(Counters counters) {
+        if(queue.remove() != null) {
+            counters.removed++;
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package name.brian_gordon.collections.queues;
 
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
 /**
  * A simple queue implementation based on an array. Basically the same idea as SynchronizedArrayQueue, written 5 1/2
- * years later. It's not thread-safe, and it doesn't attempt to do anything fancy with System.arraycopy().
+ * years later. It's not thread-safe. Single-element operations don't attempt to do anything fancy with
+ * System.arraycopy(), but the batch operations copy whole runs of the circular array at a time.
+ *
+ * The spliterator splits the circular array into index ranges without copying anything, so a parallel stream can work
+ * through the queue in place. Don't modify the queue until the stream is finished.
  *
  * @author Brian Gordon
  */
-public class ArrayQueue<T> implements Queue<T> {
+public class ArrayQueue<T> implements IterableQueue<T> {
 	private static final int DFEFAULT_INITIAL_CAPACITY = 10;
 
 	// We can't use T[] - see Effective Java, 3rd ed., item 29.
@@ -15,6 +23,9 @@ public class ArrayQueue<T> implements Queue<T> {
 	private int tailIndex = 0;
 	private int headIndex = 0;
 
+	// Where resizes are recorded, or null if nobody is interested.
+	private QueueMetrics metrics = null;
+
 	public ArrayQueue() {
 		this(ArrayQueue.DFEFAULT_INITIAL_CAPACITY);
 	}
@@ -36,6 +47,7 @@ public class ArrayQueue<T> implements Queue<T> {
 				newAry[newIndex++] = ary[i];
 			}
 
+			recordResize(newCapacity);
 			ary = newAry;
 			capacity = newCapacity;
 			tailIndex = 0;
@@ -54,8 +66,166 @@ public class ArrayQueue<T> implements Queue<T> {
 		}
 
 		T ret = (T)ary[tailIndex];
+		ary[tailIndex] = null;
 		tailIndex = (tailIndex + 1) % capacity;
 
 		return ret;
 	}
+
+	@Override
+	public void addAll(T[] items) {
+		// One slot always stays empty so that we can tell a full array from an empty one.
+		int size = size();
+		if (size + items.length >= capacity) {
+			int newCapacity = Math.max(capacity * 2, size + items.length + 1);
+			Object[] newAry = new Object[newCapacity];
+			copyOut(newAry, 0, size);
+
+			recordResize(newCapacity);
+			ary = newAry;
+			capacity = newCapacity;
+			tailIndex = 0;
+			headIndex = size;
+		}
+
+		// Copy the new items in, wrapping around the end of the array if necessary.
+		int firstRun = Math.min(items.length, capacity - headIndex);
+		System.arraycopy(items, 0, ary, headIndex, firstRun);
+		System.arraycopy(items, firstRun, ary, 0, items.length - firstRun);
+		headIndex = (headIndex + items.length) % capacity;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public int drainTo(Consumer<? super T> consumer, int maxElements) {
+		QueueSupport.checkDrainCount(maxElements);
+
+		int count = Math.min(size(), maxElements);
+		for (int i = 0; i < count; i++) {
+			T item = (T)ary[tailIndex];
+			ary[tailIndex] = null;
+			tailIndex = (tailIndex + 1) % capacity;
+			consumer.accept(item);
+		}
+
+		return count;
+	}
+
+	@Override
+	public int drainTo(T[] target, int maxElements) {
+		QueueSupport.checkDrainTarget(target.length, maxElements);
+
+		int count = Math.min(size(), maxElements);
+		copyOut(target, 0, count);
+
+		// Clear out the drained slots so that we don't hang on to garbage.
+		int firstRun = Math.min(count, capacity - tailIndex);
+		Arrays.fill(ary, tailIndex, tailIndex + firstRun, null);
+		Arrays.fill(ary, 0, count - firstRun, null);
+		tailIndex = (tailIndex + count) % capacity;
+
+		return count;
+	}
+
+	/**
+	 * Record resizes of the backing array in the given metrics. Pass null to stop recording.
+	 */
+	public void setMetrics(QueueMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public int size() {
+		return (headIndex - tailIndex + capacity) % capacity;
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return new ArraySpliterator<>(ary, capacity, tailIndex, 0, size());
+	}
+
+	private void recordResize(int newCapacity) {
+		if (metrics != null) {
+			metrics.recordResize(capacity, newCapacity);
+		}
+	}
+
+	/**
+	 * Copy the oldest count items into the target array, unrolling them if they wrap around the end of our array.
+	 */
+	private void copyOut(Object[] target, int targetIndex, int count) {
+		int firstRun = Math.min(count, capacity - tailIndex);
+		System.arraycopy(ary, tailIndex, target, targetIndex, firstRun);
+		System.arraycopy(ary, 0, target, targetIndex + firstRun, count - firstRun);
+	}
+
+	/**
+	 * Covers the elements from offset index up to offset fence, counting from the tail. Splitting just divides the
+	 * range of offsets in half, so every piece knows its exact size.
+	 */
+	private static class ArraySpliterator<T> implements Spliterator<T> {
+		private final Object[] ary;
+		private final int capacity;
+		private final int tailIndex;
+		private int index;
+		private final int fence;
+
+		ArraySpliterator(Object[] ary, int capacity, int tailIndex, int index, int fence) {
+			this.ary = ary;
+			this.capacity = capacity;
+			this.tailIndex = tailIndex;
+			this.index = index;
+			this.fence = fence;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (index >= fence) {
+				return false;
+			}
+
+			action.accept((T)ary[(tailIndex + index++) % capacity]);
+			return true;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void forEachRemaining(Consumer<? super T> action) {
+			// Walk each contiguous run of the array separately, rather than taking the modulus for every element.
+			int start = (tailIndex + index) % capacity;
+			int count = fence - index;
+			int firstRun = Math.min(count, capacity - start);
+			index = fence;
+
+			for (int i = start; i < start + firstRun; i++) {
+				action.accept((T)ary[i]);
+			}
+			for (int i = 0; i < count - firstRun; i++) {
+				action.accept((T)ary[i]);
+			}
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			int mid = (index + fence) >>> 1;
+			if (mid <= index) {
+				return null;
+			}
+
+			Spliterator<T> prefix = new ArraySpliterator<>(ary, capacity, tailIndex, index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+	}
 }
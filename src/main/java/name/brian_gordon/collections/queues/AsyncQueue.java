@@ -0,0 +1,310 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wraps a thread-safe queue so that consumers can wait for elements without blocking a thread, either by calling
+ * removeAsync() or by subscribing to the queue as a java.util.concurrent.Flow.Publisher.
+ *
+ * removeAsync() returns a future which is completed with the next element. If the queue is empty, the future is parked
+ * in a list of waiters, and the next add() hands its element straight to the oldest waiter instead of putting it in the
+ * queue. A waiter which is cancelled or completed some other way, for example by orTimeout(), takes itself off the
+ * list, so abandoned waiters don't pile up on an idle queue. The waiter is completed on the adding thread, so any
+ * dependent stages attached with thenApply() and friends run there too. Use the async variants of those methods to run
+ * them elsewhere.
+ *
+ * Each subscriber gets its own subscription, and is never delivered more elements than it requested. Subscribers
+ * compete for elements like any other consumer, so with several subscribers each element goes to exactly one of them.
+ * Deliveries run on the given executor, and each one drains up to a batch of elements from the queue at a time.
+ * Nothing is scheduled for a subscription unless it has outstanding demand and an element has arrived, so an idle
+ * queue doesn't cost anything. If a subscriber cancels partway through a batch, it's still given the rest of that
+ * batch, since those elements are already out of the queue. Every signal to a subscriber, including onError() for a
+ * bad request(), comes from its delivery loop, so signals never overlap. The publisher never calls onComplete(),
+ * because a queue never runs out for good.
+ *
+ * Waiters are served before subscribers. Null elements aren't allowed.
+ *
+ * @author Brian Gordon
+ */
+public class AsyncQueue<T> implements Queue<T>, Flow.Publisher<T> {
+    // The most elements a subscription takes from the queue at once.
+    private static final int MAX_BATCH = 64;
+
+    private final Queue<T> delegate;
+    private final Executor executor;
+
+    // Guards waiters, and makes adding to the delegate atomic with checking for waiters. As long as this is held, the
+    // delegate is only non-empty if there are no waiters.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Futures returned by removeAsync() which are waiting for an element, oldest first.
+    private final ArrayDeque<CompletableFuture<T>> waiters = new ArrayDeque<>();
+
+    private final CopyOnWriteArrayList<QueueSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Wrap an unbounded LockFreeLinkedQueue, and deliver to subscribers on the common fork-join pool.
+     */
+    public AsyncQueue() {
+        this(new LockFreeLinkedQueue<>());
+    }
+
+    /**
+     * Wrap the given queue, and deliver to subscribers on the common fork-join pool.
+     */
+    public AsyncQueue(Queue<T> delegate) {
+        this(delegate, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param delegate The queue which holds elements until someone removes them. It must be thread-safe.
+     * @param executor Runs deliveries to subscribers.
+     */
+    public AsyncQueue(Queue<T> delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    /**
+     * Hand a new element to the oldest waiter, or if there are none, add it to the head of the queue.
+     */
+    @Override
+    public void add(T data) {
+        if(!offer(data)) {
+            throw new IllegalStateException("This queue is full.");
+        }
+    }
+
+    /**
+     * Hand a new element to the oldest waiter, or if there are none, add it to the head of the queue if there's room.
+     */
+    @Override
+    public boolean offer(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        while(true) {
+            CompletableFuture<T> waiter;
+            lock.lock();
+            try {
+                // Skip over waiters which were cancelled.
+                do {
+                    waiter = waiters.poll();
+                } while(waiter != null && waiter.isDone());
+
+                if(waiter == null && !delegate.offer(data)) {
+                    return false;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if(waiter == null) {
+                signalSubscriptions();
+                return true;
+            }
+
+            // Complete the waiter outside of the lock, since this runs its dependent stages. If it was cancelled after
+            // we took it off the list, try again.
+            if(waiter.complete(data)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue, without waiting.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     */
+    @Override
+    public T remove() {
+        return delegate.remove();
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue, as soon as there is one.
+     *
+     * @return A future which is completed with the removed element. Cancelling the future gives up its place in line.
+     */
+    public CompletableFuture<T> removeAsync() {
+        lock.lock();
+        try {
+            T data = delegate.remove();
+            if(data != null) {
+                return CompletableFuture.completedFuture(data);
+            }
+
+            CompletableFuture<T> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+
+            // Take the waiter off the list if anything other than offer() completes it, since otherwise it would stay
+            // there until the next element arrived.
+            waiter.whenComplete((item, failure) -> {
+                if(failure != null) {
+                    removeWaiter(waiter);
+                }
+            });
+            return waiter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeWaiter(CompletableFuture<T> waiter) {
+        lock.lock();
+        try {
+            waiters.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of futures returned by removeAsync() which are still waiting for an element.
+     */
+    int waiterCount() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deliver elements from this queue to the given subscriber, as it requests them.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if(subscriber == null) {
+            throw new NullPointerException("Can't subscribe null.");
+        }
+
+        QueueSubscription subscription = new QueueSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscription.start();
+    }
+
+    private void signalSubscriptions() {
+        for(QueueSubscription subscription : subscriptions) {
+            if(subscription.demand.get() > 0) {
+                subscription.signal();
+            }
+        }
+    }
+
+    private class QueueSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+
+        // The number of elements requested but not yet delivered. Long.MAX_VALUE means unbounded.
+        final AtomicLong demand = new AtomicLong();
+
+        // The number of times a delivery was asked for since the last one finished. Only the thread which raises this
+        // from zero runs a delivery, so onNext() is never called concurrently.
+        private final AtomicInteger wip = new AtomicInteger(1);
+
+        private volatile boolean cancelled = false;
+
+        // Set by a bad request(), and raised by the delivering thread so that it can't overlap with onNext().
+        private volatile Throwable error;
+
+        // Only touched by the delivering thread.
+        private boolean errorRaised = false;
+
+        // Only touched by the delivering thread.
+        private final Object[] batch = new Object[MAX_BATCH];
+
+        QueueSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Call onSubscribe(). wip starts out at one, so any request() made from inside onSubscribe() only schedules a
+         * delivery once onSubscribe() has returned.
+         */
+        void start() {
+            subscriber.onSubscribe(this);
+            if(wip.decrementAndGet() != 0) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if(n <= 0) {
+                if(!cancelled) {
+                    error = new IllegalArgumentException("Must request a positive number of elements.");
+                    cancel();
+                    signal();
+                }
+                return;
+            }
+
+            demand.getAndAccumulate(n, (current, added) -> {
+                long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        void signal() {
+            if(wip.getAndIncrement() == 0) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver() {
+            int missed = 1;
+            do {
+                while(!cancelled) {
+                    long requested = demand.get();
+                    if(requested == 0) {
+                        break;
+                    }
+
+                    int count = delegate.drainTo((T[])batch, (int)Math.min(requested, MAX_BATCH));
+                    if(count == 0) {
+                        break;
+                    }
+                    if(requested != Long.MAX_VALUE) {
+                        demand.addAndGet(-count);
+                    }
+
+                    // Finish the batch even if the subscriber cancels partway. These elements are already out of the
+                    // queue, and putting them back would lose them if it's bounded and full, or reorder them if not.
+                    for(int i=0; i<count; i++) {
+                        T item = (T)batch[i];
+                        batch[i] = null;
+                        subscriber.onNext(item);
+                    }
+                }
+
+                Throwable failure = error;
+                if(failure != null && !errorRaised) {
+                    errorRaised = true;
+                    subscriber.onError(failure);
+                }
+
+                // If anyone signalled while we were delivering, go around again.
+                missed = wip.addAndGet(-missed);
+            } while(missed != 0);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Consumes events from a RingBuffer on whichever thread runs it, passing each one to an EventHandler. Each time it
+ * wakes up it processes every event its barrier makes available, and only then publishes its progress, so one
+ * sequence write covers a whole batch. A processor which falls behind catches up in bigger batches.
+ *
+ * Exceptions thrown by the handler are reported to the thread's uncaught exception handler, and the processor carries
+ * on with the next event.
+ *
+ * @author Brian Gordon
+ */
+public class BatchEventProcessor<E> implements Runnable {
+    private final RingBuffer<E> ringBuffer;
+    private final SequenceBarrier barrier;
+    private final EventHandler<? super E> handler;
+
+    // The highest sequence this processor has finished with. Read by dependent processors and gating producers.
+    private final Sequence sequence = new Sequence(-1);
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public BatchEventProcessor(RingBuffer<E> ringBuffer, SequenceBarrier barrier, EventHandler<? super E> handler) {
+        this.ringBuffer = ringBuffer;
+        this.barrier = barrier;
+        this.handler = handler;
+    }
+
+    /**
+     * Process events until halt() is called.
+     *
+     * @throws IllegalStateException If the processor is already running on another thread
+     */
+    @Override
+    public void run() {
+        if(!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("This processor is already running.");
+        }
+        barrier.clearAlert();
+
+        Thread thread = Thread.currentThread();
+        long next = sequence.getPlain() + 1;
+        while(running.get()) {
+            long available = barrier.waitFor(next);
+            if(available < next) {
+                // Alerted.
+                continue;
+            }
+
+            for(; next <= available; next++) {
+                try {
+                    handler.onEvent(ringBuffer.get(next), next, next == available);
+                } catch(RuntimeException | Error e) {
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+            sequence.set(available);
+        }
+    }
+
+    /**
+     * Stop processing after the current batch. The processor can be run again later, and it will pick up where it
+     * left off.
+     */
+    public void halt() {
+        running.set(false);
+        barrier.alert();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * The highest sequence this processor has finished with.
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    Sequence sequence() {
+        return sequence;
+    }
+}
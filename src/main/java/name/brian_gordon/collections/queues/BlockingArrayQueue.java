@@ -0,0 +1,379 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe array-backed queue whose consumers can wait for elements and whose producers can wait for room.
+ *
+ * The queue is guarded by a ReentrantLock rather than by synchronized methods. Waiting threads are parked on one of
+ * two conditions instead of spinning, so an idle consumer doesn't burn any CPU. Parking through java.util.concurrent
+ * locks also means that a waiting virtual thread releases its carrier thread, which isn't the case for a virtual
+ * thread blocked inside a synchronized block.
+ *
+ * The queue may optionally be given a capacity bound. The backing array grows as needed until it reaches the bound,
+ * after which put() waits and offer() fails until a consumer makes room. Null elements aren't allowed, because
+ * remove() and poll() use null to signal that no element was available.
+ *
+ * @author Brian Gordon
+ */
+public class BlockingArrayQueue<T> implements BlockingQueue<T> {
+    private static final int DEFAULT_INITIAL_CAPACITY = 10;
+
+    /**
+     * @see java.util.ArrayList#MAX_ARRAY_SIZE
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Signalled whenever an element is added, to wake up a waiting consumer.
+    private final Condition notEmpty = lock.newCondition();
+
+    // Signalled whenever an element is removed, to wake up a producer waiting for room.
+    private final Condition notFull = lock.newCondition();
+
+    // The maximum number of items the queue may hold.
+    private final int bound;
+
+    // Where lock contention and resizes are recorded, or null if nobody is interested.
+    private QueueMetrics metrics = null;
+
+    private Object[] ary;
+
+    // The number of items currently in the queue.
+    private int size = 0;
+
+    // The index where new items will be inserted.
+    private int headIdx = 0;
+
+    // The index pointing to the next element to be removed.
+    private int tailIdx = 0;
+
+    /**
+     * Create an unbounded queue.
+     */
+    public BlockingArrayQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param bound The maximum number of items the queue may hold before producers have to wait.
+     */
+    public BlockingArrayQueue(int bound) {
+        if(bound <= 0) {
+            throw new IllegalArgumentException("Bound must be at least 1.");
+        }
+
+        this.bound = bound;
+        ary = new Object[Math.min(bound, DEFAULT_INITIAL_CAPACITY)];
+    }
+
+    /**
+     * Add a new element to the head of the queue.
+     *
+     * @throws IllegalStateException If the queue is full.
+     */
+    @Override
+    public void add(T data) {
+        if(!offer(data)) {
+            throw new IllegalStateException("This queue is full.");
+        }
+    }
+
+    @Override
+    public boolean offer(T data) {
+        checkNotNull(data);
+
+        acquireLock();
+        try {
+            if(size == bound) {
+                return false;
+            }
+            enqueue(data);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(T data) throws InterruptedException {
+        checkNotNull(data);
+
+        acquireLockInterruptibly();
+        try {
+            while(size == bound) {
+                notFull.await();
+            }
+            enqueue(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(T data, long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotNull(data);
+
+        long remainingNanos = unit.toNanos(timeout);
+        acquireLockInterruptibly();
+        try {
+            while(size == bound) {
+                if(remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+            enqueue(data);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T remove() {
+        acquireLock();
+        try {
+            return size == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        acquireLockInterruptibly();
+        try {
+            while(size == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        acquireLockInterruptibly();
+        try {
+            while(size == 0) {
+                if(remainingNanos <= 0) {
+                    return null;
+                }
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add all of the given elements to the head of the queue, in order, while taking the lock only once. The elements
+     * are copied in with System.arraycopy().
+     *
+     * @throws IllegalStateException If adding all of the elements would exceed the bound. None of them are added.
+     */
+    @Override
+    public void addAll(T[] items) {
+        for(T item : items) {
+            checkNotNull(item);
+        }
+        int count = items.length;
+
+        acquireLock();
+        try {
+            if(count > bound - size) {
+                throw new IllegalStateException("This queue is full.");
+            }
+            if(size + count > ary.length) {
+                grow(size + count);
+            }
+
+            int firstRun = Math.min(count, ary.length - headIdx);
+            System.arraycopy(items, 0, ary, headIdx, firstRun);
+            System.arraycopy(items, firstRun, ary, 0, count - firstRun);
+            headIdx = (headIdx + count) % ary.length;
+            size += count;
+
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue while taking the lock only once. The consumer is
+     * called while the lock is held, so it should be quick.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        acquireLock();
+        try {
+            int count = Math.min(size, maxElements);
+            try {
+                for(int i=0; i<count; i++) {
+                    T item = (T)ary[tailIdx];
+                    ary[tailIdx] = null;
+                    tailIdx = (tailIdx + 1) % ary.length;
+                    size--;
+                    consumer.accept(item);
+                }
+            } finally {
+                if(count > 0) {
+                    notFull.signalAll();
+                }
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue while taking the lock only once. The elements are
+     * copied out with System.arraycopy().
+     */
+    @Override
+    public int drainTo(T[] target, int maxElements) {
+        QueueSupport.checkDrainTarget(target.length, maxElements);
+
+        acquireLock();
+        try {
+            int count = Math.min(size, maxElements);
+            int firstRun = Math.min(count, ary.length - tailIdx);
+            System.arraycopy(ary, tailIdx, target, 0, firstRun);
+            System.arraycopy(ary, 0, target, firstRun, count - firstRun);
+            Arrays.fill(ary, tailIdx, tailIdx + firstRun, null);
+            Arrays.fill(ary, 0, count - firstRun, null);
+            tailIdx = (tailIdx + count) % ary.length;
+            size -= count;
+
+            if(count > 0) {
+                notFull.signalAll();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The maximum number of items this queue may hold.
+     */
+    public int bound() {
+        return bound;
+    }
+
+    /**
+     * Record resizes of the backing array, and every time a thread found the lock already held, in the given metrics.
+     * This should be called before the queue is shared with other threads. Pass null to stop recording.
+     */
+    public void setMetrics(QueueMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Take the lock. If we're recording metrics, try to take it without waiting first, so that we can tell whether
+     * it was contended.
+     */
+    private void acquireLock() {
+        QueueMetrics metrics = this.metrics;
+        if(metrics == null) {
+            lock.lock();
+        } else if(!lock.tryLock()) {
+            metrics.recordRetry();
+            lock.lock();
+        }
+    }
+
+    private void acquireLockInterruptibly() throws InterruptedException {
+        QueueMetrics metrics = this.metrics;
+        if(metrics == null) {
+            lock.lockInterruptibly();
+        } else if(!lock.tryLock()) {
+            metrics.recordRetry();
+            lock.lockInterruptibly();
+        }
+    }
+
+    private static void checkNotNull(Object data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+    }
+
+    /**
+     * Insert an element and wake up a waiting consumer. Must be called while holding the lock, and only if there's room.
+     */
+    private void enqueue(T data) {
+        if(size == ary.length) {
+            grow(size + 1);
+        }
+
+        ary[headIdx] = data;
+        headIdx = (headIdx + 1) % ary.length;
+        size++;
+
+        notEmpty.signal();
+    }
+
+    /**
+     * Remove an element and wake up a waiting producer. Must be called while holding the lock, and only if the queue
+     * isn't empty.
+     */
+    @SuppressWarnings("unchecked")
+    private T dequeue() {
+        T ret = (T)ary[tailIdx];
+        ary[tailIdx] = null;
+        tailIdx = (tailIdx + 1) % ary.length;
+        size--;
+
+        notFull.signal();
+        return ret;
+    }
+
+    /**
+     * Grow the backing array to hold at least minCapacity items without exceeding the bound, and unroll the circular
+     * array into it. Must be called while holding the lock.
+     */
+    private void grow(int minCapacity) {
+        int capacity = ary.length;
+
+        // Reserve twice as much memory as we currently have, unless that still isn't enough.
+        int newCapacity = Math.max(capacity * 2, minCapacity);
+        if(newCapacity > MAX_ARRAY_SIZE || newCapacity < 0) {
+            newCapacity = MAX_ARRAY_SIZE;
+        }
+        newCapacity = Math.min(newCapacity, bound);
+
+        if(newCapacity < minCapacity) {
+            throw new IllegalStateException("This queue is full.");
+        }
+
+        // The items run from tailIdx towards the end of the array, possibly wrapping around to the start.
+        Object[] newAry = new Object[newCapacity];
+        int firstRun = Math.min(size, capacity - tailIdx);
+        System.arraycopy(ary, tailIdx, newAry, 0, firstRun);
+        System.arraycopy(ary, 0, newAry, firstRun, size - firstRun);
+
+        ary = newAry;
+        tailIdx = 0;
+        headIdx = size;
+
+        QueueMetrics metrics = this.metrics;
+        if(metrics != null) {
+            metrics.recordResize(capacity, newCapacity);
+        }
+    }
+}
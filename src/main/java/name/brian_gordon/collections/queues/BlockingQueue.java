@@ -0,0 +1,38 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread-safe queue whose consumers can wait for elements to arrive, and whose producers can wait for room if the
+ * queue is bounded. Every waiting operation can be cancelled by interrupting the waiting thread.
+ *
+ * @author Brian Gordon
+ */
+public interface BlockingQueue<T> extends Queue<T> {
+    /**
+     * Add a new element to the head of the queue, waiting for room to become available if necessary.
+     */
+    void put(T data) throws InterruptedException;
+
+    /**
+     * Add a new element to the head of the queue, waiting up to the given amount of time for room to become available.
+     *
+     * @return True if the element was added, or false if the time ran out first
+     */
+    boolean offer(T data, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Retrieves and removes the tail of this queue, waiting for an element to become available if necessary.
+     *
+     * @return The element at the tail of this queue
+     */
+    T take() throws InterruptedException;
+
+    /**
+     * Retrieves and removes the tail of this queue, waiting up to the given amount of time for an element to become
+     * available.
+     *
+     * @return The element at the tail of this queue, or null if the time ran out first
+     */
+    T poll(long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,112 @@
+package name.brian_gordon.collections.queues;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts queue elements to and from bytes, for queues which store their elements outside of the heap. Codecs read
+ * and write the queue's storage directly, so no intermediate byte arrays are needed unless the codec itself makes them.
+ *
+ * @author Brian Gordon
+ */
+public interface Codec<T> {
+    /**
+     * The number of bytes that encode() will write for the given element.
+     */
+    int encodedLength(T data);
+
+    /**
+     * Write the element into the target buffer, starting at its current position. The buffer has exactly
+     * encodedLength(data) bytes remaining.
+     */
+    void encode(T data, ByteBuffer target);
+
+    /**
+     * Read an element back from the source buffer. The buffer's remaining bytes are exactly the ones which encode()
+     * wrote for the element. The buffer is only valid for the duration of the call.
+     */
+    T decode(ByteBuffer source);
+
+    /**
+     * Encodes strings as UTF-8. Unpaired surrogates are replaced with '?'.
+     */
+    Codec<String> UTF_8 = new Codec<>() {
+        @Override
+        public int encodedLength(String data) {
+            int length = 0;
+            for(int i=0; i<data.length(); i++) {
+                char c = data.charAt(i);
+                if(c < 0x80) {
+                    length += 1;
+                } else if(c < 0x800) {
+                    length += 2;
+                } else if(Character.isHighSurrogate(c) && i + 1 < data.length()
+                        && Character.isLowSurrogate(data.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else if(Character.isSurrogate(c)) {
+                    length += 1;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+
+        /**
+         * Write the bytes straight into the target, one character at a time, following the same cases as
+         * encodedLength(). This allocates nothing, unlike a CharsetEncoder, which would need a new encoder and a
+         * CharBuffer for every element.
+         */
+        @Override
+        public void encode(String data, ByteBuffer target) {
+            for(int i=0; i<data.length(); i++) {
+                char c = data.charAt(i);
+                if(c < 0x80) {
+                    target.put((byte)c);
+                } else if(c < 0x800) {
+                    target.put((byte)(0xc0 | (c >> 6)));
+                    target.put((byte)(0x80 | (c & 0x3f)));
+                } else if(Character.isHighSurrogate(c) && i + 1 < data.length()
+                        && Character.isLowSurrogate(data.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, data.charAt(++i));
+                    target.put((byte)(0xf0 | (codePoint >> 18)));
+                    target.put((byte)(0x80 | ((codePoint >> 12) & 0x3f)));
+                    target.put((byte)(0x80 | ((codePoint >> 6) & 0x3f)));
+                    target.put((byte)(0x80 | (codePoint & 0x3f)));
+                } else if(Character.isSurrogate(c)) {
+                    target.put((byte)'?');
+                } else {
+                    target.put((byte)(0xe0 | (c >> 12)));
+                    target.put((byte)(0x80 | ((c >> 6) & 0x3f)));
+                    target.put((byte)(0x80 | (c & 0x3f)));
+                }
+            }
+        }
+
+        @Override
+        public String decode(ByteBuffer source) {
+            return StandardCharsets.UTF_8.decode(source).toString();
+        }
+    };
+
+    /**
+     * Encodes longs as eight big-endian bytes.
+     */
+    Codec<Long> LONGS = new Codec<>() {
+        @Override
+        public int encodedLength(Long data) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(Long data, ByteBuffer target) {
+            target.putLong(data);
+        }
+
+        @Override
+        public Long decode(ByteBuffer source) {
+            return source.getLong();
+        }
+    };
+}
@@ -0,0 +1,90 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A thread-safe queue which keeps only the latest value for each key. Adding a value whose key is already waiting in
+ * the queue replaces the waiting value in place, so it keeps the position of the original instead of going to the
+ * back. A slow consumer therefore sees at most one value per key, and always the newest one, no matter how far behind
+ * it falls.
+ *
+ * The keys wait in a LockFreeLinkedQueue, in the order they first arrived, and the latest value for each key waits in
+ * a ConcurrentHashMap, which only ever locks a single bin at a time. A key is in the linked queue exactly when it's in
+ * the map: add() only enqueues the key if it put the first value for it into the map, and remove() takes the value
+ * out of the map after dequeueing the key. A value added in between those two steps replaces the one that's about to
+ * be removed, which is still the latest-value-wins behavior we want.
+ *
+ * Null values aren't allowed, because remove() uses null to signal that the queue is empty, and the key function must
+ * never return null.
+ *
+ * @author Brian Gordon
+ */
+public class ConflatingQueue<K, T> implements Queue<T> {
+    private final Function<? super T, ? extends K> keyFunction;
+
+    // The keys which have a value waiting, oldest first.
+    private final Queue<K> keys = new LockFreeLinkedQueue<>();
+
+    // The latest value for each waiting key.
+    private final ConcurrentHashMap<K, T> values = new ConcurrentHashMap<>();
+
+    /**
+     * @param keyFunction Maps a value to its key. Values with equal keys replace each other.
+     */
+    public ConflatingQueue(Function<? super T, ? extends K> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Add a value to the head of the queue, or replace the waiting value which has the same key.
+     */
+    @Override
+    public void add(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        K key = keyFunction.apply(data);
+        if(key == null) {
+            throw new IllegalArgumentException("The key function returned null.");
+        }
+
+        if(values.put(key, data) == null) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Retrieves and removes the latest value for the key at the tail of the queue.
+     *
+     * @return The latest value for the longest-waiting key, or null if this queue is empty
+     */
+    @Override
+    public T remove() {
+        while(true) {
+            K key = keys.remove();
+            if(key == null) {
+                return null;
+            }
+
+            // This can only come back null if a key was somehow queued twice. Skip the duplicate rather than
+            // reporting that the queue is empty.
+            T ret = values.remove(key);
+            if(ret != null) {
+                return ret;
+            }
+        }
+    }
+
+    /**
+     * The number of keys with a value waiting. This is only an estimate while other threads are changing the queue.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+}
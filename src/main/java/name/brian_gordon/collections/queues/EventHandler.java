@@ -0,0 +1,17 @@
+package name.brian_gordon.collections.queues;
+
+/**
+ * Processes the events that a BatchEventProcessor reads from a RingBuffer.
+ *
+ * @author Brian Gordon
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+    /**
+     * Process one event. The event belongs to the ring buffer and will be reused, so don't hang on to it.
+     *
+     * @param endOfBatch True if this is the last event that's available right now. Handlers which buffer their output
+     *                   can use this as the signal to flush it.
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch);
+}
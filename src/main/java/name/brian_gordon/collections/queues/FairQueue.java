@@ -0,0 +1,232 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A thread-safe queue which shares its output fairly between tenants, so that one tenant adding a flood of elements
+ * can't starve the others. Each tenant has a FIFO sub-queue of its own, and remove() visits the tenants with deficit
+ * round-robin, as described in "Efficient Fair Queuing using Deficit Round Robin" (1995).
+ *
+ * The tenants with anything waiting form a ring. Whenever a tenant comes to the front of the ring, it's granted as many
+ * credits as its weight, and each element it gives up costs one credit. Once it runs out of credits it goes to the back
+ * of the ring, and once it runs out of elements it leaves the ring and forfeits any credits it had left. A tenant with
+ * weight 3 therefore gets three elements out for every one that a tenant with weight 1 gets, as long as both have
+ * elements waiting. Every operation is O(1) no matter how many tenants there are.
+ *
+ * Each tenant's sub-queue can be capped. Once a tenant reaches its cap, offer() refuses its elements and add() throws,
+ * which pushes back on that tenant alone while everyone else carries on.
+ *
+ * Like SynchronizedArrayQueue, this uses a single coarse-grained lock. Null elements aren't allowed, because remove()
+ * uses null to signal that the queue is empty, and the tenant function must never return null.
+ *
+ * @author Brian Gordon
+ */
+public class FairQueue<K, T> implements Queue<T> {
+    private final Function<? super T, ? extends K> tenantFunction;
+    private final int defaultWeight;
+    private final int tenantCapacity;
+
+    // Every tenant we've ever seen or been given a weight for.
+    private final Map<K, Tenant<T>> tenants = new HashMap<>();
+
+    // The tenants with elements waiting. The one at the front is the one currently being served.
+    private final ArrayDeque<Tenant<T>> active = new ArrayDeque<>();
+
+    private int size = 0;
+
+    /**
+     * Create a queue where every tenant has weight 1 and there are no caps.
+     */
+    public FairQueue(Function<? super T, ? extends K> tenantFunction) {
+        this(tenantFunction, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param tenantFunction Maps an element to the tenant it belongs to.
+     * @param defaultWeight The weight of tenants which haven't been given one with setWeight().
+     * @param tenantCapacity The maximum number of elements each tenant can have waiting.
+     */
+    public FairQueue(Function<? super T, ? extends K> tenantFunction, int defaultWeight, int tenantCapacity) {
+        if(defaultWeight <= 0) {
+            throw new IllegalArgumentException("Weight must be at least 1.");
+        }
+        if(tenantCapacity <= 0) {
+            throw new IllegalArgumentException("Tenant capacity must be at least 1.");
+        }
+
+        this.tenantFunction = tenantFunction;
+        this.defaultWeight = defaultWeight;
+        this.tenantCapacity = tenantCapacity;
+    }
+
+    /**
+     * Set the number of elements the given tenant can remove per round, relative to the other tenants. This takes
+     * effect from the tenant's next turn.
+     */
+    public synchronized void setWeight(K tenant, int weight) {
+        if(weight <= 0) {
+            throw new IllegalArgumentException("Weight must be at least 1.");
+        }
+
+        tenantFor(tenant).weight = weight;
+    }
+
+    /**
+     * Add a new element to the head of its tenant's sub-queue.
+     *
+     * @throws IllegalStateException If the tenant already has as many elements waiting as its cap allows.
+     */
+    @Override
+    public void add(T data) {
+        if(!offer(data)) {
+            throw new IllegalStateException("This queue is full.");
+        }
+    }
+
+    /**
+     * Add a new element to the head of its tenant's sub-queue if the tenant is under its cap.
+     *
+     * @return True if the element was added, or false if its tenant is at its cap
+     */
+    @Override
+    public synchronized boolean offer(T data) {
+        Tenant<T> tenant = tenantFor(keyOf(data));
+        if(tenant.items.size() >= tenantCapacity) {
+            return false;
+        }
+
+        enqueue(tenant, data);
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the next element in deficit round-robin order.
+     *
+     * @return The element at the tail of the sub-queue of the tenant being served, or null if this queue is empty
+     */
+    @Override
+    public synchronized T remove() {
+        return active.isEmpty() ? null : dequeue();
+    }
+
+    /**
+     * Add all of the given elements while taking the lock only once. If any tenant would go over its cap, nothing is
+     * added.
+     */
+    @Override
+    public synchronized void addAll(T[] items) {
+        Map<Tenant<T>, Integer> counts = new HashMap<>();
+        for(T item : items) {
+            Tenant<T> tenant = tenantFor(keyOf(item));
+            int count = counts.merge(tenant, 1, Integer::sum);
+            if(tenant.items.size() + count > tenantCapacity) {
+                throw new IllegalStateException("This queue is full.");
+            }
+        }
+
+        for(T item : items) {
+            enqueue(tenantFor(keyOf(item)), item);
+        }
+    }
+
+    /**
+     * Remove up to maxElements elements in deficit round-robin order while taking the lock only once. The consumer is
+     * called while the lock is held, so it should be quick.
+     */
+    @Override
+    public synchronized int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        int count = 0;
+        while(count < maxElements && !active.isEmpty()) {
+            consumer.accept(dequeue());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * The total number of elements waiting, across every tenant.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * The number of elements the given tenant has waiting.
+     */
+    public synchronized int size(K tenant) {
+        Tenant<T> state = tenants.get(tenant);
+        return state == null ? 0 : state.items.size();
+    }
+
+    private K keyOf(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        K key = tenantFunction.apply(data);
+        if(key == null) {
+            throw new IllegalArgumentException("The tenant function returned null.");
+        }
+        return key;
+    }
+
+    private Tenant<T> tenantFor(K key) {
+        return tenants.computeIfAbsent(key, k -> new Tenant<>(defaultWeight));
+    }
+
+    /**
+     * Add an element to a tenant's sub-queue, joining the ring if it wasn't in it. Must be called while holding the
+     * lock.
+     */
+    private void enqueue(Tenant<T> tenant, T data) {
+        if(tenant.items.size() == 0) {
+            active.addLast(tenant);
+        }
+        tenant.items.add(data);
+        size++;
+    }
+
+    /**
+     * Remove an element from the tenant at the front of the ring. Must be called while holding the lock, and only if
+     * the ring isn't empty.
+     */
+    private T dequeue() {
+        Tenant<T> tenant = active.peekFirst();
+        if(tenant.deficit == 0) {
+            // The tenant's turn is just starting.
+            tenant.deficit = tenant.weight;
+        }
+
+        T ret = tenant.items.remove();
+        tenant.deficit--;
+        size--;
+
+        if(tenant.items.size() == 0) {
+            // An idle tenant doesn't get to save up credits for later.
+            active.pollFirst();
+            tenant.deficit = 0;
+        } else if(tenant.deficit == 0) {
+            active.addLast(active.pollFirst());
+        }
+
+        return ret;
+    }
+
+    private static class Tenant<T> {
+        final ArrayQueue<T> items = new ArrayQueue<>();
+        int weight;
+
+        // The credits left in the tenant's current turn, or 0 if it isn't in the middle of a turn.
+        int deficit = 0;
+
+        Tenant(int weight) {
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Wraps a queue and records what goes through it in a QueueMetrics: how many elements were enqueued and dequeued, and
+ * how long a random sample of them spent in the queue. It's as thread-safe as the wrapped queue.
+ *
+ * Elements go into the wrapped queue as they are, so it can be any Queue of the same type, including ones which
+ * compare or classify their elements. To time an element, its enqueue timestamp is kept in a single sample slot next to
+ * the queue, and every dequeued element is checked against the slot by identity. Only one element is timed at a time:
+ * a newly chosen element is only timed if the slot is free. With the default rate of one in 64, the overhead is a couple
+ * of LongAdder increments and a random number per enqueue, and one volatile read per dequeue.
+ *
+ * Because elements are matched by identity, if the same object is in the queue more than once, the sample may end when
+ * an earlier copy comes out. If the wrapped queue discards the timed element without returning it, the slot is given
+ * up after a minute so that sampling can carry on.
+ *
+ * @author Brian Gordon
+ */
+public class InstrumentedQueue<T> implements Queue<T> {
+    private static final int DEFAULT_SAMPLE_RATE = 64;
+
+    // A sample which has been waiting this long is assumed to have been discarded, and may be replaced.
+    private static final long ABANDON_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Queue<T> delegate;
+    private final QueueMetrics metrics;
+
+    // One in every sampleRate elements is considered for timing.
+    private final int sampleRate;
+
+    // The element currently being timed, or null if there isn't one.
+    private final AtomicReference<Sample> sample = new AtomicReference<>();
+
+    public InstrumentedQueue(Queue<T> delegate, QueueMetrics metrics) {
+        this(delegate, metrics, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * @param delegate The queue to record. Nothing else should add to or remove from it directly.
+     * @param sampleRate Consider one in this many elements for timing, chosen at random. 1 considers every element.
+     */
+    public InstrumentedQueue(Queue<T> delegate, QueueMetrics metrics, int sampleRate) {
+        if(sampleRate <= 0) {
+            throw new IllegalArgumentException("Sample rate must be at least 1.");
+        }
+
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void add(T data) {
+        Sample started = startSample(data);
+        try {
+            delegate.add(data);
+        } catch(RuntimeException e) {
+            cancelSample(started);
+            throw e;
+        }
+        metrics.recordEnqueue(1);
+    }
+
+    @Override
+    public boolean offer(T data) {
+        Sample started = startSample(data);
+        boolean added;
+        try {
+            added = delegate.offer(data);
+        } catch(RuntimeException e) {
+            cancelSample(started);
+            throw e;
+        }
+
+        if(!added) {
+            cancelSample(started);
+            return false;
+        }
+        metrics.recordEnqueue(1);
+        return true;
+    }
+
+    @Override
+    public T remove() {
+        T item = delegate.remove();
+        if(item == null) {
+            return null;
+        }
+
+        metrics.recordDequeue(1);
+        finishSample(item);
+        return item;
+    }
+
+    @Override
+    public void addAll(T[] items) {
+        // At most one element can be timed at once, so stop looking as soon as one has been chosen.
+        Sample started = null;
+        for(int i=0; i<items.length && started == null; i++) {
+            started = startSample(items[i]);
+        }
+
+        try {
+            delegate.addAll(items);
+        } catch(RuntimeException e) {
+            cancelSample(started);
+            throw e;
+        }
+        metrics.recordEnqueue(items.length);
+    }
+
+    @Override
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        // Count as we go, so that the metrics stay right even if the consumer throws.
+        int[] count = {0};
+        try {
+            delegate.drainTo(item -> {
+                count[0]++;
+                finishSample(item);
+                consumer.accept(item);
+            }, maxElements);
+        } finally {
+            metrics.recordDequeue(count[0]);
+        }
+        return count[0];
+    }
+
+    @Override
+    public int drainTo(T[] target, int maxElements) {
+        int count = delegate.drainTo(target, maxElements);
+        metrics.recordDequeue(count);
+
+        Sample current = sample.get();
+        if(current != null) {
+            for(int i=0; i<count; i++) {
+                if(target[i] == current.item) {
+                    finishSample(target[i]);
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    public QueueMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Decide whether to time the given element, and if so, claim the sample slot for it. This has to happen before the
+     * element goes into the wrapped queue, or a consumer could take it out before the slot says it's being timed.
+     *
+     * @return The new sample, or null if the element isn't being timed
+     */
+    private Sample startSample(T data) {
+        if(data == null || ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        Sample current = sample.get();
+        if(current != null && now - current.enqueuedAt < ABANDON_NANOS) {
+            return null;
+        }
+
+        Sample started = new Sample(data, now);
+        return sample.compareAndSet(current, started) ? started : null;
+    }
+
+    /**
+     * Give up the sample slot if the element being timed never made it into the wrapped queue.
+     */
+    private void cancelSample(Sample started) {
+        if(started != null) {
+            sample.compareAndSet(started, null);
+        }
+    }
+
+    /**
+     * If the given element is the one being timed, record how long it spent in the queue and free the sample slot.
+     */
+    private void finishSample(T item) {
+        Sample current = sample.get();
+        if(current != null && current.item == item && sample.compareAndSet(current, null)) {
+            metrics.recordLatency(System.nanoTime() - current.enqueuedAt);
+        }
+    }
+
+    private static final class Sample {
+        final Object item;
+        final long enqueuedAt;
+
+        Sample(Object item, long enqueuedAt) {
+            this.item = item;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A queue of primitive ints. Elements are stored unboxed, so adding and removing them doesn't allocate anything.
+ *
+ * Since there's no null to return from an empty queue, callers either check isEmpty() before calling remove(), or, if
+ * other threads might be removing elements at the same time, call removeOrElse() with a value that can't otherwise
+ * appear in the queue.
+ *
+ * @author Brian Gordon
+ */
+public interface IntQueue {
+    /**
+     * Add a new element to the head of the queue.
+     */
+    void add(int data);
+
+    /**
+     * Retrieves and removes the tail of this queue.
+     *
+     * @throws NoSuchElementException If this queue is empty.
+     */
+    int remove();
+
+    /**
+     * Retrieves and removes the tail of this queue, or returns emptyValue if this queue is empty.
+     */
+    int removeOrElse(int emptyValue);
+
+    boolean isEmpty();
+
+    int size();
+
+    /**
+     * Add all of the given elements to the head of the queue, in order.
+     */
+    void addAll(int[] items);
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue and store them at the start of the target array,
+     * oldest first.
+     *
+     * @return The number of elements removed
+     */
+    int drainTo(int[] target, int maxElements);
+}
@@ -0,0 +1,60 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A queue whose elements can be counted, iterated and streamed without removing them. Iteration goes from the tail to
+ * the head, which is the order that remove() would return the elements in.
+ *
+ * Queues which aren't thread-safe make no attempt to detect modification during iteration, so the results are
+ * undefined if the queue is changed before the iteration is finished. Thread-safe queues document what their iterators
+ * see of concurrent changes.
+ *
+ * @author Brian Gordon
+ */
+public interface IterableQueue<T> extends Queue<T>, Iterable<T> {
+    /**
+     * The number of elements in the queue.
+     */
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * An iterator over the elements from the tail to the head. It doesn't support remove().
+     */
+    @Override
+    default Iterator<T> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * A spliterator over the elements from the tail to the head. Implementations should report SIZED and SUBSIZED
+     * wherever they can split cheaply and exactly, so that parallel streams divide the work evenly.
+     */
+    @Override
+    Spliterator<T> spliterator();
+
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    default Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * A java.util.Queue view of this queue, for code which expects the standard collections. Changes to either one are
+     * visible through the other. The view rejects null elements, since poll() and peek() use null to signal that the
+     * queue is empty.
+     */
+    default java.util.Queue<T> asJavaQueue() {
+        return new JavaQueueView<>(this);
+    }
+}
@@ -0,0 +1,77 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+
+/**
+ * Adapts an IterableQueue to java.util.Queue. See IterableQueue.asJavaQueue().
+ *
+ * @author Brian Gordon
+ */
+class JavaQueueView<T> extends AbstractQueue<T> {
+    private final IterableQueue<T> queue;
+
+    JavaQueueView(IterableQueue<T> queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public boolean offer(T t) {
+        Objects.requireNonNull(t);
+        return queue.offer(t);
+    }
+
+    @Override
+    public T poll() {
+        return queue.remove();
+    }
+
+    @Override
+    public T peek() {
+        Iterator<T> iterator = queue.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Add the whole collection with a single batch add, rather than one add() per element.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean addAll(Collection<? extends T> c) {
+        if(c == this) {
+            throw new IllegalArgumentException("Can't add a queue to itself.");
+        }
+
+        Object[] items = c.toArray();
+        for(Object item : items) {
+            Objects.requireNonNull(item);
+        }
+
+        // T is erased to Object, so an Object[] is as good as a T[] here.
+        queue.addAll((T[])items);
+        return items.length > 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return queue.iterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return queue.spliterator();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+}
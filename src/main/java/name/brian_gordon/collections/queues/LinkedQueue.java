@@ -1,13 +1,49 @@
 package name.brian_gordon.collections.queues;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
 /**
- * A simple doubly-linked queue for single-threaded applications.
+ * A simple doubly-linked queue for single-threaded applications. See LockFreeLinkedQueue for an unbounded linked queue
+ * which is thread-safe.
+ *
+ * A linked list can't be split without walking it, so parallel streams over this queue get their work handed out in
+ * batches copied from the iterator. ArrayQueue splits better.
+ *
+ * Normally every add() allocates a node and every remove() leaves one for the garbage collector. In pooling mode,
+ * removed nodes have their references cleared and go on a bounded free list instead, and add() takes nodes from there
+ * before allocating new ones. Once the free list has warmed up, a queue whose size stays within the pool size adds and
+ * removes without allocating anything. LockFreeLinkedQueue doesn't offer this: other threads may still be holding a
+ * removed node, and handing it out again would expose them to the ABA problem.
  *
  * @author Brian Gordon
  */
-public class LinkedQueue<T> implements Queue<T> {
+public class LinkedQueue<T> implements IterableQueue<T> {
     private Node<T> head;
     private Node<T> tail;
+    private int size = 0;
+
+    // Removed nodes waiting to be reused, linked through their next pointers.
+    private Node<T> free;
+    private int freeCount = 0;
+    private final int maxPooled;
+
+    public LinkedQueue() {
+        this(0);
+    }
+
+    /**
+     * @param maxPooled The maximum number of removed nodes to keep for reuse. 0 turns pooling off.
+     */
+    public LinkedQueue(int maxPooled) {
+        if(maxPooled < 0) {
+            throw new IllegalArgumentException("Pool size can't be negative.");
+        }
+
+        this.maxPooled = maxPooled;
+    }
 
     /**
      * Add a new element to the head of the queue.
@@ -15,13 +51,14 @@ public class LinkedQueue<T> implements Queue<T> {
     @Override
     public void add(T data) {
         if(head == null) {
-            head = new Node<>(data, null, null);
+            head = newNode(data, null);
             tail = head;
         } else {
             Node<T> oldHead = head;
-            head = new Node<>(data, null, oldHead);
+            head = newNode(data, oldHead);
             oldHead.prev = head;
         }
+        size++;
     }
 
     /**
@@ -36,18 +73,90 @@ public class LinkedQueue<T> implements Queue<T> {
         }
 
         T ret = tail.data;
+        Node<T> oldTail = tail;
 
         if(head == tail) {
             // Special case when there's only one element.
             head = tail = null;
         } else {
+            // Unlink the removed node in both directions, so that the remaining nodes don't keep it reachable.
             tail = tail.prev;
-            // TODO update tail.prev.next link
+            tail.next = null;
+            oldTail.prev = null;
         }
+        size--;
+        recycle(oldTail);
 
         return ret;
     }
 
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * An iterator from the tail to the head, following the prev pointers.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private Node<T> next = tail;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if(next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                T ret = next.data;
+                next = next.prev;
+                return ret;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED);
+    }
+
+    /**
+     * Take a node from the free list if there is one, or allocate a new one.
+     */
+    private Node<T> newNode(T data, Node<T> next) {
+        Node<T> node = free;
+        if(node == null) {
+            return new Node<>(data, null, next);
+        }
+
+        free = node.next;
+        freeCount--;
+        node.data = data;
+        node.next = next;
+        return node;
+    }
+
+    /**
+     * Put a removed node on the free list, unless the list is already full. Its prev pointer must already be null.
+     */
+    private void recycle(Node<T> node) {
+        if(freeCount >= maxPooled) {
+            return;
+        }
+
+        // Clear the element so that the pool doesn't keep it reachable.
+        node.data = null;
+        node.next = free;
+        free = node;
+        freeCount++;
+    }
+
     private static class Node<T> {
         public T data;
         public Node<T> prev;
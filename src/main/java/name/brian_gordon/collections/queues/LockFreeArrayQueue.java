@@ -0,0 +1,285 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue which any number of threads can add to and remove from concurrently. This is Dmitry
+ * Vyukov's bounded MPMC queue: every slot in the circular array carries a sequence number which says whose turn it is
+ * to use the slot, so producers and consumers only ever contend on a single CAS against the head or tail counter.
+ *
+ * Unlike SynchronizedArrayQueue, this queue never grows. When it's full, offer() returns false and add() throws.
+ * Null elements aren't allowed, because remove() uses null to signal that the queue is empty.
+ *
+ * @author Brian Gordon
+ */
+public class LockFreeArrayQueue<T> implements Queue<T> {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // The largest power of two which can be the length of an array.
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final Object[] ary;
+
+    // Slot i is free for the producer which claims sequence number s when sequences[i] == s, and it holds an element
+    // for the consumer which claims sequence number s when sequences[i] == s + 1.
+    private final AtomicLongArray sequences;
+
+    // The capacity is a power of two, so we can map a sequence number to a slot index with a mask instead of modulus.
+    private final int mask;
+
+    // The sequence number which the next producer will claim.
+    private final Sequence headSeq = new Sequence(0);
+
+    // The sequence number which the next consumer will claim.
+    private final Sequence tailSeq = new Sequence(0);
+
+    // Where lost CAS races are recorded, or null if nobody is interested.
+    private QueueMetrics metrics = null;
+
+    public LockFreeArrayQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum number of elements the queue can hold. This will be rounded up to a power of two.
+     */
+    public LockFreeArrayQueue(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be at least 1.");
+        }
+        if(capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be at most " + MAX_CAPACITY + ".");
+        }
+
+        int actualCapacity = QueueSupport.ceilingPowerOfTwo(capacity);
+        ary = new Object[actualCapacity];
+        sequences = new AtomicLongArray(actualCapacity);
+        for(int i=0; i<actualCapacity; i++) {
+            sequences.lazySet(i, i);
+        }
+        mask = actualCapacity - 1;
+    }
+
+    /**
+     * Add a new element to the head of the queue.
+     *
+     * @throws IllegalStateException If the queue is full.
+     */
+    @Override
+    public void add(T data) {
+        if(!offer(data)) {
+            throw new IllegalStateException("This queue is full.");
+        }
+    }
+
+    /**
+     * Add a new element to the head of the queue if there's room for it.
+     *
+     * @return True if the element was added, or false if the queue is full
+     */
+    @Override
+    public boolean offer(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        long seq = headSeq.get();
+        while(true) {
+            int idx = (int)(seq & mask);
+            long diff = sequences.get(idx) - seq;
+
+            if(diff == 0) {
+                // The slot is free. Try to claim it.
+                if(headSeq.compareAndSet(seq, seq + 1)) {
+                    ary[idx] = data;
+                    // Publish the element to the consumer which will claim this sequence number.
+                    sequences.lazySet(idx, seq + 1);
+                    return true;
+                }
+                recordRetry();
+                seq = headSeq.get();
+            } else if(diff < 0) {
+                // The slot still holds the element from one lap ago, so the queue is full.
+                return false;
+            } else {
+                // Another producer claimed this sequence number before we did.
+                recordRetry();
+                seq = headSeq.get();
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove() {
+        long seq = tailSeq.get();
+        while(true) {
+            int idx = (int)(seq & mask);
+            long diff = sequences.get(idx) - (seq + 1);
+
+            if(diff == 0) {
+                // The slot holds an element. Try to claim it.
+                if(tailSeq.compareAndSet(seq, seq + 1)) {
+                    T ret = (T)ary[idx];
+                    ary[idx] = null;
+                    // Hand the slot to the producer which will claim this sequence number on the next lap.
+                    sequences.lazySet(idx, seq + mask + 1);
+                    return ret;
+                }
+                recordRetry();
+                seq = tailSeq.get();
+            } else if(diff < 0) {
+                // No producer has filled this slot yet, so the queue is empty.
+                return null;
+            } else {
+                // Another consumer claimed this sequence number before we did.
+                recordRetry();
+                seq = tailSeq.get();
+            }
+        }
+    }
+
+    /**
+     * Add all of the given elements to the head of the queue, in order. A single CAS claims a run of slots for the whole
+     * batch, and then the elements are copied in with System.arraycopy() before each slot is published to consumers.
+     *
+     * @throws IllegalStateException If the queue doesn't have room for all of the elements. None of them are added.
+     */
+    @Override
+    public void addAll(T[] items) {
+        int count = items.length;
+        for(T item : items) {
+            if(item == null) {
+                throw new IllegalArgumentException("Can't insert null.");
+            }
+        }
+        if(count == 0) {
+            return;
+        }
+        if(count > capacity()) {
+            throw new IllegalStateException("This queue is full.");
+        }
+
+        long seq = headSeq.get();
+        while(true) {
+            int claimable = countSlots(seq, count, 0);
+            if(claimable < 0) {
+                // Another producer claimed some of these sequence numbers before we did.
+                recordRetry();
+                seq = headSeq.get();
+            } else if(claimable < count) {
+                throw new IllegalStateException("This queue is full.");
+            } else if(headSeq.compareAndSet(seq, seq + count)) {
+                break;
+            } else {
+                recordRetry();
+                seq = headSeq.get();
+            }
+        }
+
+        int startIdx = (int)(seq & mask);
+        int firstRun = Math.min(count, ary.length - startIdx);
+        System.arraycopy(items, 0, ary, startIdx, firstRun);
+        System.arraycopy(items, firstRun, ary, 0, count - firstRun);
+
+        for(int i=0; i<count; i++) {
+            sequences.lazySet((int)((seq + i) & mask), seq + i + 1);
+        }
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue, claiming them one at a time. Once a batch has been
+     * claimed with a single CAS, other consumers move on past it, so there would be no way to put back the elements
+     * that the consumer hadn't been passed if it threw. Use drainTo(T[], int) to claim a whole batch at once.
+     */
+    @Override
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        return Queue.super.drainTo(consumer, maxElements);
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue, claiming all of them with a single CAS and then
+     * copying them out with System.arraycopy().
+     */
+    @Override
+    public int drainTo(T[] target, int maxElements) {
+        QueueSupport.checkDrainTarget(target.length, maxElements);
+
+        long seq = tailSeq.get();
+        int count;
+        while(true) {
+            count = countSlots(seq, maxElements, 1);
+            if(count < 0) {
+                // Another consumer claimed some of these sequence numbers before we did.
+                recordRetry();
+                seq = tailSeq.get();
+            } else if(count == 0 || tailSeq.compareAndSet(seq, seq + count)) {
+                break;
+            } else {
+                recordRetry();
+                seq = tailSeq.get();
+            }
+        }
+
+        int startIdx = (int)(seq & mask);
+        int firstRun = Math.min(count, ary.length - startIdx);
+        System.arraycopy(ary, startIdx, target, 0, firstRun);
+        System.arraycopy(ary, 0, target, firstRun, count - firstRun);
+        Arrays.fill(ary, startIdx, startIdx + firstRun, null);
+        Arrays.fill(ary, 0, count - firstRun, null);
+
+        for(int i=0; i<count; i++) {
+            sequences.lazySet((int)((seq + i) & mask), seq + i + mask + 1);
+        }
+
+        return count;
+    }
+
+    /**
+     * Count how many consecutive slots, starting with the one for sequence number seq, are ready to be claimed. A slot
+     * is ready for a producer when its sequence number is seq, and ready for a consumer when it's seq + 1, so offset
+     * should be 0 for producers and 1 for consumers.
+     *
+     * @return The number of ready slots, up to max, or -1 if another thread has already claimed seq
+     */
+    private int countSlots(long seq, int max, int offset) {
+        for(int i=0; i<max; i++) {
+            long diff = sequences.get((int)((seq + i) & mask)) - (seq + i + offset);
+            if(diff < 0) {
+                return i;
+            } else if(diff > 0) {
+                return -1;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * The maximum number of elements this queue can hold.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Record every lost CAS race, where another thread claimed a sequence number first, in the given metrics. This
+     * should be called before the queue is shared with other threads. Pass null to stop recording.
+     */
+    public void setMetrics(QueueMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void recordRetry() {
+        QueueMetrics metrics = this.metrics;
+        if(metrics != null) {
+            metrics.recordRetry();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package name.brian_gordon.collections.queues;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * An unbounded, lock-free linked queue which any number of threads can add to and remove from concurrently. This is
+ * the Michael-Scott queue, as described in "Simple, Fast, and Practical Non-Blocking and Blocking Concurrent Queue
+ * Algorithms" (1996).
+ *
+ * The list always starts with a dummy node whose item has already been removed. The tail pointer refers to the dummy
+ * node, and the head pointer refers to the most recently added node (or lags at most a few nodes behind it). Removing
+ * an element makes its node the new dummy. The old dummy is then linked to itself, so that it doesn't keep the rest of
+ * the list reachable after it's gone, and so that threads holding a stale reference to it can tell that it was removed.
+ * Removed nodes are never reused. The garbage collector only reclaims a node once no thread can still be holding it,
+ * and that's what protects the CASes here from the ABA problem, so unlike LinkedQueue this queue can't pool its nodes.
+ *
+ * Null elements aren't allowed, because remove() uses null to signal that the queue is empty.
+ *
+ * Iterators are weakly consistent. They walk the list from the tail without taking any snapshot, so they see every
+ * element which was in the queue when they started and wasn't removed before they got to it, and they may or may not
+ * see elements added since. If an iterator finds that the node it's standing on has been removed, it starts again
+ * from the current tail, which is always at or after where it was. size() has to count the whole list, and is only an
+ * estimate while other threads are changing the queue.
+ *
+ * @author Brian Gordon
+ */
+public class LockFreeLinkedQueue<T> implements IterableQueue<T> {
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(LockFreeLinkedQueue.class, "head", Node.class);
+            TAIL = lookup.findVarHandle(LockFreeLinkedQueue.class, "tail", Node.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // The most recently added node, or a node a little behind it if another thread is in the middle of an add().
+    private volatile Node<T> head;
+
+    // The dummy node. Its successor holds the element at the tail of the queue.
+    private volatile Node<T> tail;
+
+    // Where failed CASes are recorded, or null if nobody is interested.
+    private QueueMetrics metrics = null;
+
+    public LockFreeLinkedQueue() {
+        Node<T> dummy = new Node<>(null);
+        head = dummy;
+        tail = dummy;
+    }
+
+    /**
+     * Add a new element to the head of the queue.
+     */
+    @Override
+    public void add(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        Node<T> node = new Node<>(data);
+        while(true) {
+            Node<T> last = head;
+            Node<T> next = last.next;
+            if(last != head) {
+                // The head moved while we were reading it.
+                continue;
+            }
+
+            if(next == null) {
+                // last really is the last node. Try to link the new node after it, and then try to swing the head
+                // pointer to the new node. If the second CAS fails, some other thread already helped us.
+                if(NEXT.compareAndSet(last, null, node)) {
+                    HEAD.compareAndSet(this, last, node);
+                    return;
+                }
+                recordRetry();
+            } else {
+                // Another thread linked a node but hasn't moved the head pointer yet. Help it along.
+                HEAD.compareAndSet(this, last, next);
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     */
+    @Override
+    public T remove() {
+        while(true) {
+            Node<T> first = tail;
+            Node<T> last = head;
+            Node<T> next = first.next;
+            if(first != tail) {
+                // The tail moved while we were reading it.
+                continue;
+            }
+
+            if(first == last) {
+                if(next == null) {
+                    return null;
+                }
+                // The head pointer is lagging behind an add() in progress. Move it along before we remove anything, so
+                // that it never points to a removed node.
+                HEAD.compareAndSet(this, last, next);
+            } else {
+                // Read the item before the CAS, because once next becomes the dummy another thread may clear it.
+                T ret = next.item;
+                if(TAIL.compareAndSet(this, first, next)) {
+                    next.item = null;
+                    NEXT.setRelease(first, first);
+                    return ret;
+                }
+                recordRetry();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int count = 0;
+        for(Iterator<T> it = iterator(); it.hasNext() && count < Integer.MAX_VALUE; it.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            // The node holding the element that next() will return, or null if there are no more.
+            private Node<T> nextNode;
+            private T nextItem;
+
+            {
+                advance(tail);
+            }
+
+            /**
+             * Move to the first live node after the given one.
+             */
+            private void advance(Node<T> node) {
+                while(true) {
+                    Node<T> next = node.next;
+                    if(next == node) {
+                        // The node was removed while we were on it. Everything before the current tail is gone too.
+                        next = tail.next;
+                    }
+                    if(next == null) {
+                        nextNode = null;
+                        nextItem = null;
+                        return;
+                    }
+
+                    // The item is cleared once its node becomes the dummy, so skip nodes which were removed under us.
+                    T item = next.item;
+                    if(item != null) {
+                        nextNode = next;
+                        nextItem = item;
+                        return;
+                    }
+                    node = next;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextNode != null;
+            }
+
+            @Override
+            public T next() {
+                if(nextNode == null) {
+                    throw new NoSuchElementException();
+                }
+
+                T ret = nextItem;
+                advance(nextNode);
+                return ret;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.CONCURRENT);
+    }
+
+    /**
+     * Record every failed CAS on a node's next pointer or on the tail pointer in the given metrics. This should be
+     * called before the queue is shared with other threads. Pass null to stop recording.
+     */
+    public void setMetrics(QueueMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void recordRetry() {
+        QueueMetrics metrics = this.metrics;
+        if(metrics != null) {
+            metrics.recordRetry();
+        }
+    }
+
+    private static class Node<T> {
+        // Written before the node is published, and only cleared after the node becomes the dummy.
+        volatile T item;
+        volatile Node<T> next;
+
+        Node(T item) {
+            this.item = item;
+        }
+    }
+}
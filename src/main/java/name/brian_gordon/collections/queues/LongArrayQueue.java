@@ -0,0 +1,137 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A queue of primitive longs backed by a circular long[]. It's not thread-safe; see SynchronizedLongArrayQueue for a
+ * variant which is.
+ *
+ * @author Brian Gordon
+ */
+public class LongArrayQueue implements LongQueue {
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    // The largest power of two which can be the length of an array.
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // The length is always a power of two, so we can wrap indexes with a mask instead of modulus.
+    private long[] ary;
+
+    // The number of items currently in the queue.
+    private int size = 0;
+
+    // The index where new items will be inserted.
+    private int headIdx = 0;
+
+    // The index pointing to the next element to be removed.
+    private int tailIdx = 0;
+
+    public LongArrayQueue() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity The number of items the queue can hold before it has to grow. This will be rounded up to a
+     *                        power of two.
+     */
+    public LongArrayQueue(int initialCapacity) {
+        if(initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be at least 1.");
+        }
+        if(initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Initial capacity must be at most " + MAX_CAPACITY + ".");
+        }
+
+        ary = new long[QueueSupport.ceilingPowerOfTwo(initialCapacity)];
+    }
+
+    @Override
+    public void add(long data) {
+        if(size == ary.length) {
+            grow(size + 1);
+        }
+
+        ary[headIdx] = data;
+        headIdx = (headIdx + 1) & (ary.length - 1);
+        size++;
+    }
+
+    @Override
+    public long remove() {
+        if(size == 0) {
+            throw new NoSuchElementException("This queue is empty.");
+        }
+
+        return removeTail();
+    }
+
+    @Override
+    public long removeOrElse(long emptyValue) {
+        return size == 0 ? emptyValue : removeTail();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void addAll(long[] items) {
+        int count = items.length;
+        if(count > ary.length - size) {
+            grow(size + count);
+        }
+
+        int firstRun = Math.min(count, ary.length - headIdx);
+        System.arraycopy(items, 0, ary, headIdx, firstRun);
+        System.arraycopy(items, firstRun, ary, 0, count - firstRun);
+        headIdx = (headIdx + count) & (ary.length - 1);
+        size += count;
+    }
+
+    @Override
+    public int drainTo(long[] target, int maxElements) {
+        QueueSupport.checkDrainTarget(target.length, maxElements);
+
+        int count = Math.min(size, maxElements);
+        int firstRun = Math.min(count, ary.length - tailIdx);
+        System.arraycopy(ary, tailIdx, target, 0, firstRun);
+        System.arraycopy(ary, 0, target, firstRun, count - firstRun);
+        tailIdx = (tailIdx + count) & (ary.length - 1);
+        size -= count;
+
+        return count;
+    }
+
+    private long removeTail() {
+        long ret = ary[tailIdx];
+        tailIdx = (tailIdx + 1) & (ary.length - 1);
+        size--;
+
+        return ret;
+    }
+
+    /**
+     * Grow the backing array to the next power of two which can hold minCapacity items, and unroll the circular array
+     * into it.
+     */
+    private void grow(int minCapacity) {
+        if(minCapacity > MAX_CAPACITY || minCapacity < 0) {
+            throw new IllegalStateException("This queue is full.");
+        }
+
+        long[] newAry = new long[QueueSupport.ceilingPowerOfTwo(minCapacity)];
+        int firstRun = Math.min(size, ary.length - tailIdx);
+        System.arraycopy(ary, tailIdx, newAry, 0, firstRun);
+        System.arraycopy(ary, 0, newAry, firstRun, size - firstRun);
+
+        ary = newAry;
+        tailIdx = 0;
+        headIdx = size;
+    }
+}
@@ -0,0 +1,197 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A priority queue of values ordered by primitive long keys, smallest key first. It's not thread-safe.
+ *
+ * This is the same d-ary heap as HeapPriorityQueue, but the keys and values live in two parallel arrays. That way
+ * comparisons read the keys straight out of a long[] instead of chasing a pointer to each element and calling a
+ * Comparator, and callers don't have to allocate a wrapper object to pair each value with its priority.
+ *
+ * Like HeapPriorityQueue, a queue created with topK() holds at most k values, and a full one keeps the values with the
+ * k biggest keys by replacing the root in place.
+ *
+ * @author Brian Gordon
+ */
+public class LongKeyedPriorityQueue<T> {
+    private static final int DEFAULT_ARITY = 4;
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * @see java.util.ArrayList#MAX_ARRAY_SIZE
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final int arity;
+
+    // The maximum number of values to keep, for a top-k queue, or -1 for an unbounded queue.
+    private final int k;
+
+    // values[i] is the value whose priority is keys[i].
+    private long[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    public LongKeyedPriorityQueue() {
+        this(DEFAULT_ARITY);
+    }
+
+    /**
+     * @param arity The number of children each node of the heap has.
+     */
+    public LongKeyedPriorityQueue(int arity) {
+        this(arity, -1, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    private LongKeyedPriorityQueue(int arity, int k, int initialCapacity) {
+        if(arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2.");
+        }
+
+        this.arity = arity;
+        this.k = k;
+        keys = new long[initialCapacity];
+        values = new Object[initialCapacity];
+    }
+
+    /**
+     * Create a queue which only keeps the k values with the biggest keys.
+     */
+    public static <U> LongKeyedPriorityQueue<U> topK(int k) {
+        if(k <= 0) {
+            throw new IllegalArgumentException("k must be at least 1.");
+        }
+
+        return new LongKeyedPriorityQueue<>(DEFAULT_ARITY, k, k);
+    }
+
+    /**
+     * Add a value with the given priority. If this is a full top-k queue, the value replaces the one with the smallest
+     * key if its key is bigger, and is otherwise discarded.
+     */
+    public void add(long key, T value) {
+        if(size == k) {
+            if(key > keys[0]) {
+                siftDown(0, key, value);
+            }
+            return;
+        }
+
+        if(size == keys.length) {
+            grow(size + 1);
+        }
+        siftUp(size++, key, value);
+    }
+
+    /**
+     * Retrieves and removes the value with the smallest key.
+     *
+     * @return The value with the smallest key, or null if this queue is empty
+     */
+    public T remove() {
+        if(size == 0) {
+            return null;
+        }
+
+        T ret = valueAt(0);
+        long lastKey = keys[--size];
+        T lastValue = valueAt(size);
+        values[size] = null;
+        if(size > 0) {
+            siftDown(0, lastKey, lastValue);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Retrieves, but does not remove, the value with the smallest key.
+     *
+     * @return The value with the smallest key, or null if this queue is empty
+     */
+    public T peek() {
+        return size == 0 ? null : valueAt(0);
+    }
+
+    /**
+     * Retrieves the smallest key in the queue.
+     *
+     * @throws NoSuchElementException if this queue is empty
+     */
+    public long peekKey() {
+        if(size == 0) {
+            throw new NoSuchElementException("This queue is empty.");
+        }
+
+        return keys[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T valueAt(int idx) {
+        return (T)values[idx];
+    }
+
+    private void siftUp(int idx, long key, T value) {
+        while(idx > 0) {
+            int parent = (idx - 1) / arity;
+            if(key >= keys[parent]) {
+                break;
+            }
+            keys[idx] = keys[parent];
+            values[idx] = values[parent];
+            idx = parent;
+        }
+        keys[idx] = key;
+        values[idx] = value;
+    }
+
+    private void siftDown(int idx, long key, T value) {
+        while(true) {
+            int firstChild = arity * idx + 1;
+            if(firstChild >= size) {
+                break;
+            }
+
+            // Find the child with the smallest key.
+            int smallest = firstChild;
+            int end = Math.min(firstChild + arity, size);
+            for(int child=firstChild+1; child<end; child++) {
+                if(keys[child] < keys[smallest]) {
+                    smallest = child;
+                }
+            }
+
+            if(keys[smallest] >= key) {
+                break;
+            }
+            keys[idx] = keys[smallest];
+            values[idx] = values[smallest];
+            idx = smallest;
+        }
+        keys[idx] = key;
+        values[idx] = value;
+    }
+
+    private void grow(int minCapacity) {
+        if(minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("This queue is full.");
+        }
+
+        int newCapacity = Math.max(keys.length * 2, minCapacity);
+        if(newCapacity > MAX_ARRAY_SIZE || newCapacity < 0) {
+            newCapacity = MAX_ARRAY_SIZE;
+        }
+        keys = Arrays.copyOf(keys, newCapacity);
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
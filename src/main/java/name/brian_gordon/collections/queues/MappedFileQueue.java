@@ -0,0 +1,290 @@
+package name.brian_gordon.collections.queues;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * A durable queue whose elements live in memory-mapped files, so that its contents survive a restart of the process.
+ *
+ * Elements are stored back to back in fixed-size segment files in a directory, each one as a four-byte length followed
+ * by the bytes that the codec wrote. The codec writes straight into the mapped segment and reads straight out of it, so
+ * adding or removing an element involves no write() or read() system calls. When an element doesn't fit in the rest of
+ * the current segment, the writer marks the end of the segment and moves on to a new file. Once the reader has moved
+ * past a segment, the file is deleted.
+ *
+ * The positions of the reader and the writer are kept in a small mapped cursor file and updated after every operation.
+ * Reopening a queue on the same directory picks up exactly where the previous instance left off. Because the operating
+ * system writes mapped pages back on its own schedule, everything survives the process crashing. Call force() to make
+ * sure that everything also survives the machine crashing.
+ *
+ * This class is thread-safe and uses coarse-grained locking. Only one instance at a time should use a given directory.
+ * Null elements aren't allowed, because remove() uses null to signal that the queue is empty.
+ *
+ * @author Brian Gordon
+ */
+public class MappedFileQueue<T> implements Queue<T>, Closeable {
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    // Each element is preceded by its length.
+    private static final int HEADER_SIZE = Integer.BYTES;
+
+    // Written in place of a length to tell the reader that the rest of the segment is unused.
+    private static final int END_OF_SEGMENT = -1;
+
+    private static final String CURSOR_FILE_NAME = "cursors";
+    private static final String SEGMENT_FILE_SUFFIX = ".segment";
+
+    // Layout of the cursor file. Each cursor is stored as a single long, segment * segmentSize + position, so that
+    // moving a cursor to a new segment is one eight-byte write that can't be torn in half by a crash.
+    private static final int WRITE_CURSOR_OFFSET = 0;
+    private static final int READ_CURSOR_OFFSET = 8;
+    private static final int CURSOR_FILE_SIZE = 16;
+
+    private final Path directory;
+    private final Codec<T> codec;
+    private final int segmentSize;
+
+    private final MappedByteBuffer cursors;
+
+    // The segment being appended to, and the offset within it where the next element will go.
+    private long writeSegment;
+    private int writePosition;
+    private MappedByteBuffer writeBuffer;
+
+    // The segment being consumed, and the offset within it of the next element to be removed. When the reader catches
+    // up to the writer's segment, readBuffer and writeBuffer are the same mapping.
+    private long readSegment;
+    private int readPosition;
+    private MappedByteBuffer readBuffer;
+
+    private boolean closed = false;
+
+    public MappedFileQueue(Path directory, Codec<T> codec) throws IOException {
+        this(directory, codec, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open the queue stored in the given directory, creating it if necessary.
+     *
+     * @param segmentSize The size of each segment file in bytes. This limits the size of an encoded element, and must
+     *                    be the same every time the directory is opened.
+     */
+    public MappedFileQueue(Path directory, Codec<T> codec, int segmentSize) throws IOException {
+        if(segmentSize < 3 * HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + 3 * HEADER_SIZE + " bytes.");
+        }
+
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+        try(FileChannel channel = FileChannel.open(directory.resolve(CURSOR_FILE_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // A brand new cursor file is filled with zeros, which means that both cursors are at the start of segment 0.
+            cursors = channel.map(FileChannel.MapMode.READ_WRITE, 0, CURSOR_FILE_SIZE);
+        }
+
+        long writeCursor = cursors.getLong(WRITE_CURSOR_OFFSET);
+        writeSegment = writeCursor / segmentSize;
+        writePosition = (int)(writeCursor % segmentSize);
+        long readCursor = cursors.getLong(READ_CURSOR_OFFSET);
+        readSegment = readCursor / segmentSize;
+        readPosition = (int)(readCursor % segmentSize);
+
+        writeBuffer = mapSegment(writeSegment);
+        readBuffer = readSegment == writeSegment ? writeBuffer : mapSegment(readSegment);
+    }
+
+    /**
+     * Add a new element to the head of the queue.
+     *
+     * @throws IllegalArgumentException If the encoded element is too big to fit in a segment.
+     * @throws UncheckedIOException If a new segment file can't be created.
+     */
+    @Override
+    public synchronized void add(T data) {
+        checkOpen();
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        int length = codec.encodedLength(data);
+
+        // Always leave room at the end of a segment for the end-of-segment marker.
+        int available = segmentSize - HEADER_SIZE;
+        if(length > available - HEADER_SIZE) {
+            throw new IllegalArgumentException("An element of " + length + " bytes doesn't fit in a segment of "
+                    + segmentSize + " bytes.");
+        }
+
+        if(writePosition + HEADER_SIZE + length > available) {
+            rollWriter();
+        }
+
+        // Write the element first and its length second, and then move the cursor.
+        codec.encode(data, writeBuffer.slice(writePosition + HEADER_SIZE, length));
+        writeBuffer.putInt(writePosition, length);
+        writePosition += HEADER_SIZE + length;
+        saveWriteCursor();
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     * @throws UncheckedIOException If a segment file can't be opened or deleted.
+     */
+    @Override
+    public synchronized T remove() {
+        checkOpen();
+
+        T ret = read();
+        if(ret != null) {
+            saveReadCursor();
+        }
+        return ret;
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue while taking the lock only once, and move the read
+     * cursor once at the end instead of after every element. If the process crashes partway through, the elements
+     * that were already passed to the consumer will come out again when the queue is reopened. The consumer is called
+     * while the lock is held, so it should be quick.
+     *
+     * @throws UncheckedIOException If a segment file can't be opened or deleted.
+     */
+    @Override
+    public synchronized int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+        checkOpen();
+
+        int count = 0;
+        try {
+            T item;
+            while(count < maxElements && (item = read()) != null) {
+                consumer.accept(item);
+                count++;
+            }
+        } finally {
+            saveReadCursor();
+        }
+        return count;
+    }
+
+    /**
+     * Flush all elements and cursor positions to the storage device, so that they survive an operating system crash or
+     * power failure.
+     */
+    public synchronized void force() {
+        checkOpen();
+        writeBuffer.force();
+        cursors.force();
+    }
+
+    /**
+     * Flush everything to the storage device and stop using the queue. The mapped files are released when the buffers
+     * are garbage collected.
+     */
+    @Override
+    public synchronized void close() {
+        if(!closed) {
+            force();
+            closed = true;
+        }
+    }
+
+    private void checkOpen() {
+        if(closed) {
+            throw new IllegalStateException("This queue is closed.");
+        }
+    }
+
+    /**
+     * Decode the element at the read position and move past it, without saving the read cursor.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     */
+    private T read() {
+        while(true) {
+            if(readSegment == writeSegment && readPosition == writePosition) {
+                return null;
+            }
+
+            int length = readBuffer.getInt(readPosition);
+            if(length == END_OF_SEGMENT) {
+                rollReader();
+                continue;
+            }
+
+            T ret = codec.decode(readBuffer.slice(readPosition + HEADER_SIZE, length).asReadOnlyBuffer());
+            readPosition += HEADER_SIZE + length;
+            return ret;
+        }
+    }
+
+    /**
+     * Mark the rest of the current segment as unused and start writing into the next one.
+     */
+    private void rollWriter() {
+        writeBuffer.putInt(writePosition, END_OF_SEGMENT);
+
+        // Flush the finished segment now, so that force() only ever has to deal with the current one.
+        writeBuffer.force();
+
+        MappedByteBuffer next = mapSegment(writeSegment + 1);
+        writeSegment++;
+        writePosition = 0;
+        writeBuffer = next;
+
+        saveWriteCursor();
+    }
+
+    /**
+     * Move on to the next segment and delete the one we just finished reading.
+     */
+    private void rollReader() {
+        long finished = readSegment;
+
+        readSegment++;
+        readPosition = 0;
+        readBuffer = readSegment == writeSegment ? writeBuffer : mapSegment(readSegment);
+        saveReadCursor();
+
+        try {
+            Files.deleteIfExists(segmentPath(finished));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void saveWriteCursor() {
+        cursors.putLong(WRITE_CURSOR_OFFSET, writeSegment * segmentSize + writePosition);
+    }
+
+    private void saveReadCursor() {
+        cursors.putLong(READ_CURSOR_OFFSET, readSegment * segmentSize + readPosition);
+    }
+
+    private MappedByteBuffer mapSegment(long segment) {
+        try(FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        // Pad the segment number so that the files sort in order.
+        return directory.resolve(String.format("%019d", segment) + SEGMENT_FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,250 @@
+package name.brian_gordon.collections.queues;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable queue. add() and remove() leave the queue they're called on alone and return a new version, which
+ * shares almost all of its structure with the old one, so any version can be kept around as a snapshot for free.
+ *
+ * This is Okasaki's real-time queue, from "Simple and Efficient Purely Functional Queues and Deques" (1995). The
+ * oldest elements are in a lazily evaluated front stream, and the newest are in a rear list, newest first. Whenever
+ * the rear list gets longer than the front stream, the queue sets up a rotation, which is a new front stream that
+ * appends the reversed rear list to the old front stream, one cell at a time as the cells are demanded. Every add()
+ * and remove() also forces one more cell of the most recent rotation, through a pointer called the schedule, so the
+ * rotation is always finished before anyone needs its results. That keeps every operation O(1) in the worst case,
+ * not just amortized, and that still holds when old versions are reused, which isn't true of the simpler two-list
+ * banker's queue.
+ *
+ * Forcing a cell is lock-free. Threads which race to force the same cell compute the same result, and the first one
+ * to install it wins, so instances can be shared between threads without any synchronization. Null elements aren't
+ * allowed, to match the mutable queues.
+ *
+ * @author Brian Gordon
+ */
+public final class PersistentQueue<T> implements Iterable<T> {
+    private static final PersistentQueue<?> EMPTY = new PersistentQueue<>(null, null, null, 0);
+
+    // The oldest elements, or null if there are none.
+    private final Stream<T> front;
+
+    // The newest elements, newest first, or null if there are none. Never longer than the front stream.
+    private final Cons<T> rear;
+
+    // The first cell of the front stream which hasn't been forced yet, or null if they all have.
+    private final Stream<T> schedule;
+
+    private final int size;
+
+    private PersistentQueue(Stream<T> front, Cons<T> rear, Stream<T> schedule, int size) {
+        this.front = front;
+        this.rear = rear;
+        this.schedule = schedule;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentQueue<T> empty() {
+        return (PersistentQueue<T>)EMPTY;
+    }
+
+    /**
+     * @return A queue with the given element added to the head of this one
+     */
+    public PersistentQueue<T> add(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        return balance(front, new Cons<>(data, rear), schedule, size + 1);
+    }
+
+    /**
+     * @return A queue with the element at the tail of this one removed
+     * @throws NoSuchElementException If this queue is empty.
+     */
+    public PersistentQueue<T> remove() {
+        if(front == null) {
+            throw new NoSuchElementException("This queue is empty.");
+        }
+
+        return balance(front.force().tail, rear, schedule, size - 1);
+    }
+
+    /**
+     * @return The element at the tail of this queue, or null if this queue is empty
+     */
+    public T peek() {
+        return front == null ? null : front.force().head;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * An iterator from the tail to the head, which is the order that remove() would take the elements in.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        // The rear list is newest first, so it has to be turned around. Everything else is read in place.
+        Object[] reversed = new Object[size];
+        int rearSize = 0;
+        for(Cons<T> cell = rear; cell != null; cell = cell.tail) {
+            reversed[rearSize++] = cell.head;
+        }
+        final int rearLength = rearSize;
+
+        return new Iterator<T>() {
+            private Stream<T> next = front;
+            private int rearIndex = rearLength - 1;
+
+            @Override
+            public boolean hasNext() {
+                return next != null || rearIndex >= 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if(next != null) {
+                    Evaluated<T> cell = next.force();
+                    next = cell.tail;
+                    return cell.head;
+                }
+                if(rearIndex < 0) {
+                    throw new NoSuchElementException();
+                }
+                return (T)reversed[rearIndex--];
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder ret = new StringBuilder();
+        ret.append('[');
+        for(Iterator<T> it = iterator(); it.hasNext(); ) {
+            ret.append(it.next());
+            if(it.hasNext()) {
+                ret.append(", ");
+            }
+        }
+        ret.append(']');
+        return ret.toString();
+    }
+
+    /**
+     * Do one step of the pending rotation, or start a new rotation if the last one has finished. Starting a new one
+     * only happens when the rear list has just become one longer than the front stream, which is what rotate() needs.
+     */
+    private static <T> PersistentQueue<T> balance(Stream<T> front, Cons<T> rear, Stream<T> schedule, int size) {
+        if(schedule != null) {
+            return new PersistentQueue<>(front, rear, schedule.force().tail, size);
+        }
+
+        Stream<T> rotated = Stream.rotate(front, rear, null);
+        return new PersistentQueue<>(rotated, null, rotated, size);
+    }
+
+    /**
+     * A cell of a lazy stream. It starts out holding the arguments of a pending rotation, and the first thread to force
+     * it replaces them with the evaluated head and tail.
+     */
+    private static final class Stream<T> {
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Stream.class, "state", Object.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        // Either a Rotation, before the cell is forced, or an Evaluated, after.
+        private volatile Object state;
+
+        private Stream(Object state) {
+            this.state = state;
+        }
+
+        /**
+         * A cell which is already evaluated.
+         */
+        static <T> Stream<T> cons(T head, Stream<T> tail) {
+            return new Stream<>(new Evaluated<>(head, tail));
+        }
+
+        /**
+         * A stream of f's elements, followed by r's elements in reverse, followed by a's elements. r must be exactly one
+         * element longer than f. Nothing is evaluated until the cell is forced.
+         */
+        static <T> Stream<T> rotate(Stream<T> f, Cons<T> r, Stream<T> a) {
+            return new Stream<>(new Rotation<>(f, r, a));
+        }
+
+        @SuppressWarnings("unchecked")
+        Evaluated<T> force() {
+            Object current = state;
+            if(current instanceof Evaluated) {
+                return (Evaluated<T>)current;
+            }
+
+            Rotation<T> rotation = (Rotation<T>)current;
+            Evaluated<T> result;
+            if(rotation.f == null) {
+                // The front has run out, so r has exactly one element left.
+                result = new Evaluated<>(rotation.r.head, rotation.a);
+            } else {
+                // Moving one element of r onto a each step reverses r by the time f runs out.
+                Evaluated<T> f = rotation.f.force();
+                result = new Evaluated<>(f.head, rotate(f.tail, rotation.r.tail, cons(rotation.r.head, rotation.a)));
+            }
+
+            // If another thread got there first, use its result so that everyone shares the same tail.
+            if(STATE.compareAndSet(this, rotation, result)) {
+                return result;
+            }
+            return (Evaluated<T>)state;
+        }
+    }
+
+    private static final class Evaluated<T> {
+        final T head;
+        final Stream<T> tail;
+
+        Evaluated(T head, Stream<T> tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+    }
+
+    private static final class Rotation<T> {
+        final Stream<T> f;
+        final Cons<T> r;
+        final Stream<T> a;
+
+        Rotation(Stream<T> f, Cons<T> r, Stream<T> a) {
+            this.f = f;
+            this.r = r;
+            this.a = a;
+        }
+    }
+
+    private static final class Cons<T> {
+        final T head;
+        final Cons<T> tail;
+
+        Cons(T head, Cons<T> tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+    }
+}
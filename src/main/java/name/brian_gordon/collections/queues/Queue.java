@@ -1,5 +1,8 @@
 package name.brian_gordon.collections.queues;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * @author Brian Gordon
  */
@@ -9,10 +12,81 @@ public interface Queue<T> {
      */
     void add(T data);
 
+    /**
+     * Add a new element to the head of the queue if there's room for it. Queues which grow to fit their contents always
+     * have room, so by default this is the same as add().
+     *
+     * @return True if the element was added, or false if this queue is bounded and already full
+     */
+    default boolean offer(T data) {
+        add(data);
+        return true;
+    }
+
     /**
      * Retrieves and removes the tail of this queue.
      *
      * @return The element at the tail of this queue, or null if this queue is empty
      */
     T remove();
+
+    /**
+     * Add all of the given elements to the head of the queue, in order. Implementations override this to pay for
+     * synchronization and copying once per batch rather than once per element. Bounded queues either add every element
+     * or, if there isn't room for all of them, throw IllegalStateException without adding any.
+     */
+    default void addAll(T[] items) {
+        for(T item : items) {
+            add(item);
+        }
+    }
+
+    /**
+     * Add all of the given elements to the head of the queue, in order.
+     *
+     * @see #addAll(Object[])
+     */
+    @SuppressWarnings("unchecked")
+    default void addAll(List<? extends T> items) {
+        // T is erased to Object, so an Object[] is as good as a T[] here.
+        addAll((T[])items.toArray());
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue and pass them to the consumer, oldest first. Every
+     * element is removed before it's passed to the consumer. If the consumer throws, the exception is passed on to the
+     * caller, the element it threw on stays removed, and every element it hadn't been passed yet stays in the queue.
+     *
+     * @return The number of elements removed
+     * @throws IllegalArgumentException If maxElements is negative
+     */
+    default int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        int count = 0;
+        T item;
+        while(count < maxElements && (item = remove()) != null) {
+            consumer.accept(item);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue and store them at the start of the target array,
+     * oldest first.
+     *
+     * @return The number of elements removed
+     * @throws IllegalArgumentException If maxElements is negative or bigger than the target array
+     */
+    default int drainTo(T[] target, int maxElements) {
+        QueueSupport.checkDrainTarget(target.length, maxElements);
+
+        int count = 0;
+        T item;
+        while(count < maxElements && (item = remove()) != null) {
+            target[count++] = item;
+        }
+        return count;
+    }
 }
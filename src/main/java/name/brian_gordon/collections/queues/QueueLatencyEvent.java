@@ -0,0 +1,26 @@
+package name.brian_gordon.collections.queues;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Emitted by QueueMetrics for each sampled element, when it's removed from the queue.
+ *
+ * @author Brian Gordon
+ */
+@Name("name.brian_gordon.collections.QueueLatency")
+@Label("Queue Latency")
+@Category("Collections")
+@Description("How long a sampled element spent in a queue")
+class QueueLatencyEvent extends Event {
+    @Label("Queue")
+    String queueName;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
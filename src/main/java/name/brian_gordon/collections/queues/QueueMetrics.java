@@ -0,0 +1,135 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing what a queue has been doing. An InstrumentedQueue records how many elements go in and come out
+ * and how long a sample of them spent in the queue. Some implementations can also be given a QueueMetrics with
+ * setMetrics(), to record events only they can see: growing their backing array, and retrying a CAS or waiting for a
+ * contended lock.
+ *
+ * Every counter is a LongAdder, which gives each contending thread its own cell to increment instead of having every
+ * thread fight over one cache line. Reading a counter sums the cells, so reads are comparatively slow and aren't an
+ * atomic snapshot. The counters only ever go up, so rates can be computed by reading them periodically and taking
+ * the difference.
+ *
+ * Resizes and latency samples are also emitted as JFR events, which cost next to nothing unless a recording with them
+ * enabled is running.
+ *
+ * @author Brian Gordon
+ */
+public class QueueMetrics {
+    private final String name;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dequeued = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder resizes = new LongAdder();
+    private final LongAdder latencySamples = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param name Identifies the queue in JFR events and in toString().
+     */
+    public QueueMetrics(String name) {
+        this.name = name;
+    }
+
+    public void recordEnqueue(int count) {
+        enqueued.add(count);
+    }
+
+    public void recordDequeue(int count) {
+        dequeued.add(count);
+    }
+
+    /**
+     * Record a failed CAS which had to be retried, or a lock which was already held when a thread tried to take it.
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordResize(int oldCapacity, int newCapacity) {
+        resizes.increment();
+
+        QueueResizeEvent event = new QueueResizeEvent();
+        if(event.isEnabled()) {
+            event.queueName = name;
+            event.oldCapacity = oldCapacity;
+            event.newCapacity = newCapacity;
+            event.commit();
+        }
+    }
+
+    /**
+     * Record how long a sampled element spent in the queue.
+     */
+    public void recordLatency(long nanos) {
+        latencySamples.increment();
+        totalLatencyNanos.add(nanos);
+        maxLatencyNanos.accumulate(nanos);
+
+        QueueLatencyEvent event = new QueueLatencyEvent();
+        if(event.isEnabled()) {
+            event.queueName = name;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long enqueued() {
+        return enqueued.sum();
+    }
+
+    public long dequeued() {
+        return dequeued.sum();
+    }
+
+    /**
+     * The number of elements enqueued but not yet dequeued. This is approximate while other threads are using the
+     * queue.
+     */
+    public long depth() {
+        // Read dequeued first, so that a concurrent enqueue-dequeue pair can't make the depth go negative.
+        long out = dequeued.sum();
+        return Math.max(enqueued.sum() - out, 0);
+    }
+
+    public long retries() {
+        return retries.sum();
+    }
+
+    public long resizes() {
+        return resizes.sum();
+    }
+
+    public long latencySamples() {
+        return latencySamples.sum();
+    }
+
+    /**
+     * The mean time the sampled elements spent in the queue, or 0 if nothing has been sampled yet.
+     */
+    public long meanLatencyNanos() {
+        long samples = latencySamples.sum();
+        return samples == 0 ? 0 : totalLatencyNanos.sum() / samples;
+    }
+
+    public long maxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + "[depth=" + depth() + ", enqueued=" + enqueued() + ", dequeued=" + dequeued() + ", retries="
+                + retries() + ", resizes=" + resizes() + ", meanLatencyNanos=" + meanLatencyNanos()
+                + ", maxLatencyNanos=" + maxLatencyNanos() + "]";
+    }
+}
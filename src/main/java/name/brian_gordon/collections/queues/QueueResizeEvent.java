@@ -0,0 +1,27 @@
+package name.brian_gordon.collections.queues;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted by QueueMetrics whenever a queue grows its backing array.
+ *
+ * @author Brian Gordon
+ */
+@Name("name.brian_gordon.collections.QueueResize")
+@Label("Queue Resize")
+@Category("Collections")
+@Description("A queue grew its backing array")
+class QueueResizeEvent extends Event {
+    @Label("Queue")
+    String queueName;
+
+    @Label("Old Capacity")
+    int oldCapacity;
+
+    @Label("New Capacity")
+    int newCapacity;
+}
@@ -0,0 +1,37 @@
+package name.brian_gordon.collections.queues;
+
+/**
+ * Helpers shared by the Queue implementations in this package.
+ *
+ * @author Brian Gordon
+ */
+final class QueueSupport {
+    private QueueSupport() {
+    }
+
+    /**
+     * Make sure that a drainTo() element count isn't negative.
+     */
+    static void checkDrainCount(int maxElements) {
+        if(maxElements < 0) {
+            throw new IllegalArgumentException("Can't drain " + maxElements + " elements.");
+        }
+    }
+
+    /**
+     * Make sure that a drainTo() target array can hold the requested number of elements.
+     */
+    static void checkDrainTarget(int targetLength, int maxElements) {
+        if(maxElements < 0 || maxElements > targetLength) {
+            throw new IllegalArgumentException("Can't drain " + maxElements + " elements into an array of length "
+                    + targetLength + ".");
+        }
+    }
+
+    /**
+     * Round a capacity up to the next power of two, so that indexes can be wrapped with a mask instead of modulus.
+     */
+    static int ceilingPowerOfTwo(int capacity) {
+        return capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
@@ -0,0 +1,289 @@
+package name.brian_gordon.collections.queues;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A ring buffer of preallocated, mutable events in the style of the LMAX Disruptor. Instead of allocating an object
+ * per element and handing it through a queue, producers claim a sequence number, fill in the event that lives in that
+ * slot, and publish the sequence. Consumers are BatchEventProcessors, which read the events in place and track their
+ * progress in sequences of their own. After construction, nothing on the producer or consumer path allocates.
+ *
+ * Consumers can be arranged in a dependency graph. A processor created with a barrier on the ring buffer alone sees
+ * events as soon as they're published, and a processor created with a barrier on other processors only sees an event
+ * once all of those processors have finished with it. Producers can't reuse a slot until the gating processors, which
+ * should be the ones at the ends of the graph, have all moved past it.
+ *
+ * The typical pattern for a producer is:
+ *
+ *     long sequence = ringBuffer.next();
+ *     ringBuffer.get(sequence).setValue(value);
+ *     ringBuffer.publish(sequence);
+ *
+ * Every claimed sequence must be published, or consumers will wait for it forever.
+ *
+ * A single-producer ring buffer claims sequences with plain writes, and publishing just moves the cursor. The behavior
+ * is undefined if more than one thread claims sequences from it. A multi-producer ring buffer claims sequences with a
+ * CAS, and since producers may publish out of order, it marks each slot as published separately. Consumers scan those
+ * marks to find how far they can safely read.
+ *
+ * @author Brian Gordon
+ */
+public class RingBuffer<E> {
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    // The largest power of two which can be the length of an array.
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private static final Sequence[] NO_SEQUENCES = new Sequence[0];
+
+    private final Object[] entries;
+
+    // The size is a power of two, so we can map a sequence to a slot index with a mask instead of modulus.
+    private final int bufferSize;
+    private final int mask;
+
+    private final WaitStrategy waitStrategy;
+
+    // For a single producer, the highest published sequence. For multiple producers, the highest claimed sequence.
+    private final Sequence cursor = new Sequence(-1);
+
+    // The sequences of the processors which producers mustn't lap. Replaced wholesale when processors are added.
+    private volatile Sequence[] gatingSequences = NO_SEQUENCES;
+
+    // The producers' most recent reading of the minimum gating sequence.
+    private final Sequence gatingCache = new Sequence(-1);
+
+    // Only for multiple producers: the number of times around the ring that each slot's published event comes from.
+    // A consumer can read sequence s once available[s & mask] == s >>> indexShift.
+    private final int[] available;
+    private final int indexShift;
+
+    // Only for a single producer: the highest claimed sequence. Only touched by the producer thread.
+    private long nextValue = -1;
+
+    /**
+     * Create a ring buffer which only one thread will ever publish to.
+     *
+     * @param eventFactory Called once per slot to preallocate the events.
+     * @param bufferSize The number of slots. This will be rounded up to a power of two.
+     */
+    public static <E> RingBuffer<E> singleProducer(Supplier<E> eventFactory, int bufferSize, WaitStrategy waitStrategy) {
+        return new RingBuffer<>(eventFactory, bufferSize, waitStrategy, false);
+    }
+
+    /**
+     * Create a ring buffer which any number of threads can publish to.
+     *
+     * @param eventFactory Called once per slot to preallocate the events.
+     * @param bufferSize The number of slots. This will be rounded up to a power of two.
+     */
+    public static <E> RingBuffer<E> multiProducer(Supplier<E> eventFactory, int bufferSize, WaitStrategy waitStrategy) {
+        return new RingBuffer<>(eventFactory, bufferSize, waitStrategy, true);
+    }
+
+    private RingBuffer(Supplier<E> eventFactory, int bufferSize, WaitStrategy waitStrategy, boolean multiProducer) {
+        if(bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be at least 1.");
+        }
+        if(bufferSize > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Buffer size must be at most " + MAX_CAPACITY + ".");
+        }
+
+        this.bufferSize = QueueSupport.ceilingPowerOfTwo(bufferSize);
+        this.mask = this.bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+
+        entries = new Object[this.bufferSize];
+        for(int i=0; i<this.bufferSize; i++) {
+            entries[i] = eventFactory.get();
+        }
+
+        if(multiProducer) {
+            available = new int[this.bufferSize];
+            Arrays.fill(available, -1);
+            indexShift = Integer.numberOfTrailingZeros(this.bufferSize);
+        } else {
+            available = null;
+            indexShift = 0;
+        }
+    }
+
+    /**
+     * Claim the next sequence, waiting for the gating processors if the ring buffer is full.
+     */
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Claim the next n sequences, waiting for the gating processors if there isn't room for all of them.
+     *
+     * @return The highest of the claimed sequences. The others are the n-1 sequences before it.
+     */
+    public long next(int n) {
+        if(n < 1 || n > bufferSize) {
+            throw new IllegalArgumentException("Can only claim between 1 and " + bufferSize + " sequences at a time.");
+        }
+
+        if(available == null) {
+            long current = nextValue;
+            long next = current + n;
+            waitForCapacity(next - bufferSize, current);
+            nextValue = next;
+            return next;
+        }
+
+        while(true) {
+            long current = cursor.get();
+            long next = current + n;
+            if(waitForCapacity(next - bufferSize, current) && cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * The event in the slot for the given sequence. Producers should only touch the events for sequences they've
+     * claimed and not yet published, and consumers should only touch the events for sequences their barrier has made
+     * available.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E)entries[(int)(sequence & mask)];
+    }
+
+    /**
+     * Make the event for a claimed sequence visible to consumers.
+     */
+    public void publish(long sequence) {
+        if(available == null) {
+            cursor.set(sequence);
+        } else {
+            AVAILABLE.setRelease(available, (int)(sequence & mask), (int)(sequence >>> indexShift));
+        }
+    }
+
+    /**
+     * Make the events for a claimed range of sequences visible to consumers.
+     */
+    public void publish(long lo, long hi) {
+        if(available == null) {
+            cursor.set(hi);
+        } else {
+            for(long sequence=lo; sequence<=hi; sequence++) {
+                publish(sequence);
+            }
+        }
+    }
+
+    /**
+     * Create a barrier for a new processor. If any processors are given, the new processor will only see an event
+     * once all of them have processed it. Otherwise it sees events as soon as they're published. Each processor needs
+     * a barrier of its own, because halting the processor alerts its barrier.
+     */
+    public SequenceBarrier newBarrier(BatchEventProcessor<?>... dependencies) {
+        Sequence[] dependents = new Sequence[dependencies.length];
+        for(int i=0; i<dependencies.length; i++) {
+            dependents[i] = dependencies[i].sequence();
+        }
+        return new SequenceBarrier(this, dependents);
+    }
+
+    /**
+     * Stop producers from overwriting any event that the given processors haven't processed yet. Usually these are
+     * the processors at the ends of the dependency graph, since the others are always ahead of them. This should be
+     * called before anything is published.
+     */
+    public synchronized void addGatingProcessors(BatchEventProcessor<?>... processors) {
+        Sequence[] current = gatingSequences;
+        Sequence[] updated = Arrays.copyOf(current, current.length + processors.length);
+        for(int i=0; i<processors.length; i++) {
+            updated[current.length + i] = processors[i].sequence();
+        }
+        gatingSequences = updated;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * With a single producer, the highest sequence which has been published. With multiple producers, the highest
+     * sequence which has been claimed, though it may not have been published yet. Either way this reads the shared
+     * cursor, so it's safe to call from any thread.
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * The number of slots that producers could claim right now without waiting. This is only an estimate while
+     * producers and consumers are running. With a single producer, slots which have been claimed but not yet published
+     * are counted as free.
+     */
+    public long remainingCapacity() {
+        long produced = getCursor();
+        return bufferSize - (produced - minimumGatingSequence(produced));
+    }
+
+    Sequence cursor() {
+        return cursor;
+    }
+
+    WaitStrategy waitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Find the highest sequence from lo up to hi such that every sequence from lo up to it has been published. Returns
+     * lo-1 if lo itself hasn't been published yet.
+     */
+    long highestPublished(long lo, long hi) {
+        if(available == null) {
+            return hi;
+        }
+
+        for(long sequence=lo; sequence<=hi; sequence++) {
+            int slot = (int)(sequence & mask);
+            if((int)AVAILABLE.getAcquire(available, slot) != (int)(sequence >>> indexShift)) {
+                return sequence - 1;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * Make sure that the gating processors have moved past wrapPoint, so that the slots up to it can be reused. A
+     * single producer parks until they have. Multiple producers return false instead of waiting, since the cursor may
+     * have moved in the meantime and the caller has to reread it.
+     *
+     * @param current The highest sequence claimed so far
+     */
+    private boolean waitForCapacity(long wrapPoint, long current) {
+        long cached = gatingCache.getPlain();
+        if(wrapPoint <= cached && cached <= current) {
+            return true;
+        }
+
+        long gating;
+        while(wrapPoint > (gating = minimumGatingSequence(current))) {
+            LockSupport.parkNanos(1);
+            if(available != null) {
+                return false;
+            }
+        }
+        gatingCache.set(gating);
+        return true;
+    }
+
+    private long minimumGatingSequence(long minimum) {
+        for(Sequence sequence : gatingSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+}
@@ -0,0 +1,229 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A queue made of a linked list of fixed-size array chunks. It's not thread-safe.
+ *
+ * ArrayQueue and SynchronizedArrayQueue grow by allocating an array twice as big and copying everything over, which
+ * takes time proportional to the size of the queue and briefly needs room for three times as many elements. This
+ * queue grows by linking on another chunk instead, so add() never copies anything. Chunks are released as soon as the
+ * consumer is done with them, so memory usage also shrinks back down after a burst. A few released chunks are kept
+ * around for reuse, so that a queue which hovers around a chunk boundary doesn't allocate a new chunk every time it
+ * crosses it.
+ *
+ * @author Brian Gordon
+ */
+public class SegmentedArrayQueue<T> implements Queue<T> {
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+    private static final int DEFAULT_MAX_POOLED_CHUNKS = 2;
+
+    private final int chunkSize;
+    private final int maxPooledChunks;
+
+    // The chunk that new items are inserted into, and the index in it where the next one will go.
+    private Chunk headChunk;
+    private int headIdx = 0;
+
+    // The chunk holding the next element to be removed, and that element's index. The chunks from tailChunk to
+    // headChunk are linked through their next pointers.
+    private Chunk tailChunk;
+    private int tailIdx = 0;
+
+    // Released chunks which are ready to be reused, linked through their next pointers.
+    private Chunk pool = null;
+    private int pooledChunks = 0;
+
+    public SegmentedArrayQueue() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public SegmentedArrayQueue(int chunkSize) {
+        this(chunkSize, DEFAULT_MAX_POOLED_CHUNKS);
+    }
+
+    /**
+     * @param chunkSize The number of elements in each chunk.
+     * @param maxPooledChunks The number of released chunks to keep around for reuse.
+     */
+    public SegmentedArrayQueue(int chunkSize, int maxPooledChunks) {
+        if(chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be at least 1.");
+        }
+        if(maxPooledChunks < 0) {
+            throw new IllegalArgumentException("Can't pool a negative number of chunks.");
+        }
+
+        this.chunkSize = chunkSize;
+        this.maxPooledChunks = maxPooledChunks;
+        headChunk = tailChunk = new Chunk(chunkSize);
+    }
+
+    /**
+     * Add a new element to the head of the queue.
+     */
+    @Override
+    public void add(T data) {
+        if(headIdx == chunkSize) {
+            linkChunk();
+        }
+
+        headChunk.items[headIdx++] = data;
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove() {
+        if(tailChunk == headChunk && tailIdx == headIdx) {
+            return null;
+        }
+        if(tailIdx == chunkSize) {
+            unlinkChunk();
+        }
+
+        T ret = (T)tailChunk.items[tailIdx];
+        tailChunk.items[tailIdx++] = null;
+        resetIfEmpty();
+
+        return ret;
+    }
+
+    @Override
+    public void addAll(T[] items) {
+        int copied = 0;
+        while(copied < items.length) {
+            if(headIdx == chunkSize) {
+                linkChunk();
+            }
+
+            int run = Math.min(items.length - copied, chunkSize - headIdx);
+            System.arraycopy(items, copied, headChunk.items, headIdx, run);
+            headIdx += run;
+            copied += run;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        int count = 0;
+        while(count < maxElements && !(tailChunk == headChunk && tailIdx == headIdx)) {
+            if(tailIdx == chunkSize) {
+                unlinkChunk();
+            }
+
+            T item = (T)tailChunk.items[tailIdx];
+            tailChunk.items[tailIdx++] = null;
+            count++;
+            consumer.accept(item);
+        }
+        resetIfEmpty();
+
+        return count;
+    }
+
+    @Override
+    public int drainTo(T[] target, int maxElements) {
+        QueueSupport.checkDrainTarget(target.length, maxElements);
+
+        int count = 0;
+        while(count < maxElements && !(tailChunk == headChunk && tailIdx == headIdx)) {
+            if(tailIdx == chunkSize) {
+                unlinkChunk();
+            }
+
+            // Copy whatever is left in this chunk, up to the head if the head is in the same chunk.
+            int end = tailChunk == headChunk ? headIdx : chunkSize;
+            int run = Math.min(maxElements - count, end - tailIdx);
+            System.arraycopy(tailChunk.items, tailIdx, target, count, run);
+            Arrays.fill(tailChunk.items, tailIdx, tailIdx + run, null);
+            tailIdx += run;
+            count += run;
+        }
+        resetIfEmpty();
+
+        return count;
+    }
+
+    /**
+     * The number of chunks linked into the queue, including the one being inserted into.
+     */
+    int chunkCount() {
+        int count = 1;
+        for(Chunk chunk=tailChunk; chunk != headChunk; chunk=chunk.next) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * The number of released chunks being kept around for reuse.
+     */
+    int pooledChunkCount() {
+        return pooledChunks;
+    }
+
+    /**
+     * Link a fresh chunk after the head chunk and start inserting into it.
+     */
+    private void linkChunk() {
+        Chunk chunk;
+        if(pool != null) {
+            chunk = pool;
+            pool = chunk.next;
+            chunk.next = null;
+            pooledChunks--;
+        } else {
+            chunk = new Chunk(chunkSize);
+        }
+
+        headChunk.next = chunk;
+        headChunk = chunk;
+        headIdx = 0;
+    }
+
+    /**
+     * Release the tail chunk, which the consumer has finished with, and start removing from the next one.
+     */
+    private void unlinkChunk() {
+        Chunk released = tailChunk;
+        tailChunk = released.next;
+        tailIdx = 0;
+
+        // The consumer already cleared out every slot, so the chunk can be reused as-is.
+        if(pooledChunks < maxPooledChunks) {
+            released.next = pool;
+            pool = released;
+            pooledChunks++;
+        } else {
+            released.next = null;
+        }
+    }
+
+    /**
+     * Once the queue is empty, start over at the beginning of the current chunk so that we don't have to link a new
+     * chunk any sooner than necessary.
+     */
+    private void resetIfEmpty() {
+        if(tailChunk == headChunk && tailIdx == headIdx) {
+            tailIdx = headIdx = 0;
+        }
+    }
+
+    private static class Chunk {
+        final Object[] items;
+        Chunk next;
+
+        Chunk(int size) {
+            items = new Object[size];
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package name.brian_gordon.collections.queues;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A long counter which is padded on both sides so that it occupies a cache line by itself. Concurrent queues keep
+ * their head and tail counters in separate instances of this class, so that producers bumping one counter don't
+ * invalidate the cache line that consumers are reading the other counter from.
+ *
+ * The JVM is free to reorder the fields within a class, but it always lays out a superclass's fields before those of
+ * its subclasses. That's why the padding lives in a small class hierarchy rather than in a single class.
+ *
+ * @author Brian Gordon
+ */
+class Sequence extends SequenceRhsPadding {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    Sequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    /**
+     * Read the counter with acquire semantics.
+     */
+    long get() {
+        return (long)VALUE.getAcquire(this);
+    }
+
+    /**
+     * Read the counter with full volatile semantics. Unlike get(), this can't be reordered with an earlier
+     * setVolatile() of a different counter.
+     */
+    long getVolatile() {
+        return (long)VALUE.getVolatile(this);
+    }
+
+    /**
+     * Read the counter without any ordering guarantees. Only safe for the thread which owns the counter.
+     */
+    long getPlain() {
+        return (long)VALUE.get(this);
+    }
+
+    /**
+     * Write the counter without any ordering guarantees. Only safe for values which no other thread reads.
+     */
+    void setPlain(long newValue) {
+        VALUE.set(this, newValue);
+    }
+
+    /**
+     * Write the counter with release semantics, the equivalent of AtomicLong.lazySet(). Everything the calling thread
+     * wrote beforehand becomes visible to any thread which subsequently reads the new value with get().
+     */
+    void set(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    /**
+     * Write the counter with full volatile semantics.
+     */
+    void setVolatile(long newValue) {
+        VALUE.setVolatile(this, newValue);
+    }
+
+    boolean compareAndSet(long expectedValue, long newValue) {
+        return VALUE.compareAndSet(this, expectedValue, newValue);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
+
+// Seven longs on either side of the value keep it 56 bytes away from any other field, which is enough to give it a
+// 64-byte cache line to itself.
+
+abstract class SequenceLhsPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class SequenceValue extends SequenceLhsPadding {
+    protected volatile long value;
+}
+
+abstract class SequenceRhsPadding extends SequenceValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
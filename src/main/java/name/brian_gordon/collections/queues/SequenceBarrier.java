@@ -0,0 +1,81 @@
+package name.brian_gordon.collections.queues;
+
+/**
+ * Tells a RingBuffer consumer which events it's allowed to read: those which have been published, and which every
+ * processor it depends on has finished with. Create one with RingBuffer.newBarrier().
+ *
+ * @author Brian Gordon
+ */
+public final class SequenceBarrier {
+    private final RingBuffer<?> ringBuffer;
+    private final Sequence cursor;
+
+    // The sequences of the processors that this barrier's consumer depends on. Empty if it only depends on producers.
+    private final Sequence[] dependents;
+
+    private final WaitStrategy waitStrategy;
+
+    private volatile boolean alerted = false;
+
+    SequenceBarrier(RingBuffer<?> ringBuffer, Sequence[] dependents) {
+        this.ringBuffer = ringBuffer;
+        this.cursor = ringBuffer.cursor();
+        this.dependents = dependents;
+        this.waitStrategy = ringBuffer.waitStrategy();
+    }
+
+    /**
+     * Wait until the given sequence can be read, using the ring buffer's wait strategy.
+     *
+     * @return The highest sequence which can be read, which may be well past the requested one, or sequence-1 if the
+     *         barrier was alerted while waiting
+     */
+    public long waitFor(long sequence) {
+        int attempt = 0;
+        while(!alerted) {
+            long available = tryWaitFor(sequence);
+            if(available >= sequence) {
+                return available;
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return sequence - 1;
+    }
+
+    /**
+     * Check once, without waiting, whether the given sequence can be read.
+     *
+     * @return The highest sequence which can be read, or sequence-1 if the given sequence can't be read yet
+     */
+    public long tryWaitFor(long sequence) {
+        if(dependents.length > 0) {
+            // Every processor we depend on has only processed published events, so there's no need to check for gaps.
+            long available = Long.MAX_VALUE;
+            for(Sequence dependent : dependents) {
+                available = Math.min(available, dependent.get());
+            }
+            return available;
+        }
+
+        long available = cursor.get();
+        if(available < sequence) {
+            return available;
+        }
+        return ringBuffer.highestPublished(sequence, available);
+    }
+
+    /**
+     * Make any current or future waitFor() return without waiting, until clearAlert() is called.
+     */
+    public void alert() {
+        alerted = true;
+    }
+
+    public void clearAlert() {
+        alerted = false;
+    }
+
+    public boolean isAlerted() {
+        return alerted;
+    }
+}
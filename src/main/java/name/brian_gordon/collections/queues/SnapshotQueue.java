@@ -0,0 +1,137 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A lock-free queue which keeps its contents in a PersistentQueue and publishes each new version through an
+ * AtomicReference. Writers build the next version and CAS it in, retrying if another writer got there first. Readers
+ * never have to coordinate with writers at all: snapshot() is a single read of the reference, and the version it
+ * returns never changes, no matter what happens to the queue afterward.
+ *
+ * addAll() and drainTo(T[], int) build their whole result before publishing it, so other threads see a batch as a
+ * single atomic change. Iterators and spliterators work from a snapshot taken when they're created.
+ *
+ * Every change allocates a few small objects, and writers which lose a race throw their work away, so this trades
+ * write throughput for free consistent reads. Null elements aren't allowed, because remove() uses null to signal that
+ * the queue is empty.
+ *
+ * @author Brian Gordon
+ */
+public class SnapshotQueue<T> implements IterableQueue<T> {
+    private final AtomicReference<PersistentQueue<T>> current = new AtomicReference<>(PersistentQueue.empty());
+
+    /**
+     * Add a new element to the head of the queue.
+     */
+    @Override
+    public void add(T data) {
+        while(true) {
+            PersistentQueue<T> version = current.get();
+            if(current.compareAndSet(version, version.add(data))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add all of the given elements to the head of the queue, in order, as a single atomic change.
+     */
+    @Override
+    public void addAll(T[] items) {
+        while(true) {
+            PersistentQueue<T> version = current.get();
+            PersistentQueue<T> next = version;
+            for(T item : items) {
+                next = next.add(item);
+            }
+            if(current.compareAndSet(version, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     */
+    @Override
+    public T remove() {
+        while(true) {
+            PersistentQueue<T> version = current.get();
+            if(version.isEmpty()) {
+                return null;
+            }
+            if(current.compareAndSet(version, version.remove())) {
+                return version.peek();
+            }
+        }
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue, one atomic change per element. A whole batch can't
+     * be removed at once here, because there would be no way to put back the elements that the consumer hadn't been
+     * passed if it threw. Use drainTo(T[], int) to remove a batch as a single atomic change.
+     */
+    @Override
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        return IterableQueue.super.drainTo(consumer, maxElements);
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue as a single atomic change, and store them at the
+     * start of the target array, oldest first.
+     */
+    @Override
+    public int drainTo(T[] target, int maxElements) {
+        QueueSupport.checkDrainTarget(target.length, maxElements);
+
+        PersistentQueue<T> version;
+        int count;
+        while(true) {
+            version = current.get();
+            count = Math.min(version.size(), maxElements);
+            PersistentQueue<T> next = version;
+            for(int i=0; i<count; i++) {
+                next = next.remove();
+            }
+            if(current.compareAndSet(version, next)) {
+                break;
+            }
+        }
+
+        // The removed elements are still in the old version, in order.
+        for(int i=0; i<count; i++) {
+            target[i] = version.peek();
+            version = version.remove();
+        }
+        return count;
+    }
+
+    /**
+     * The current contents of the queue, which will never change.
+     */
+    public PersistentQueue<T> snapshot() {
+        return current.get();
+    }
+
+    @Override
+    public int size() {
+        return current.get().size();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        PersistentQueue<T> version = current.get();
+        return Spliterators.spliterator(version.iterator(), version.size(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public String toString() {
+        return current.get().toString();
+    }
+}
@@ -0,0 +1,192 @@
+package name.brian_gordon.collections.queues;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * A thread-safe queue which holds a bounded number of elements in memory and spills the rest to disk, so that it can
+ * absorb bursts far bigger than the heap without either growing without bound or dropping anything.
+ *
+ * The oldest elements sit in an in-memory ring. Once the ring is full, new elements are appended to a MappedFileQueue
+ * instead, and they keep going there for as long as anything is on disk, since they're newer than everything that's
+ * already there. When the consumer empties the ring, it refills it from disk with one batch of up to a full ring's
+ * worth of elements. Everything in memory is always older than everything on disk, so elements come out in FIFO order
+ * no matter which side of the boundary they spent their time on.
+ *
+ * The spill files go in a new directory which is created under the given one and deleted by close(). Unlike
+ * MappedFileQueue itself, this queue isn't durable: whatever was in memory is gone if the process dies.
+ *
+ * Null elements aren't allowed, because remove() uses null to signal that the queue is empty.
+ *
+ * @author Brian Gordon
+ */
+public class SpillingQueue<T> implements Queue<T>, Closeable {
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final int memoryCapacity;
+
+    // The oldest elements. Never holds more than memoryCapacity, so it never has to grow.
+    private final ArrayQueue<T> memory;
+
+    // Everything newer than the elements in memory.
+    private final MappedFileQueue<T> disk;
+    private final Path spillDirectory;
+
+    // The number of elements on disk.
+    private long spilled = 0;
+
+    private boolean closed = false;
+
+    public SpillingQueue(Path parentDirectory, Codec<T> codec, int memoryCapacity) throws IOException {
+        this(parentDirectory, codec, memoryCapacity, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param parentDirectory Where to create the directory for the spill files.
+     * @param memoryCapacity The maximum number of elements to hold in memory.
+     * @param segmentSize The size of each spill file in bytes. This limits the size of an encoded element.
+     */
+    public SpillingQueue(Path parentDirectory, Codec<T> codec, int memoryCapacity, int segmentSize)
+            throws IOException {
+        if(memoryCapacity <= 0) {
+            throw new IllegalArgumentException("Memory capacity must be at least 1.");
+        }
+
+        this.memoryCapacity = memoryCapacity;
+
+        // ArrayQueue always keeps one slot empty.
+        memory = new ArrayQueue<>(memoryCapacity + 1);
+
+        Files.createDirectories(parentDirectory);
+        spillDirectory = Files.createTempDirectory(parentDirectory, "spill");
+        disk = new MappedFileQueue<>(spillDirectory, codec, segmentSize);
+    }
+
+    /**
+     * Add a new element to the head of the queue, spilling it to disk if there's no room in memory.
+     *
+     * @throws IllegalArgumentException If the element has to be spilled and is too big to fit in a spill file.
+     * @throws UncheckedIOException If a new spill file can't be created.
+     */
+    @Override
+    public synchronized void add(T data) {
+        checkOpen();
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        if(spilled == 0 && memory.size() < memoryCapacity) {
+            memory.add(data);
+        } else {
+            disk.add(data);
+            spilled++;
+        }
+    }
+
+    /**
+     * Add all of the given elements to the head of the queue, in order, while taking the lock only once. As many as fit
+     * go into memory, and the rest are spilled.
+     */
+    @Override
+    public synchronized void addAll(T[] items) {
+        checkOpen();
+        for(T item : items) {
+            if(item == null) {
+                throw new IllegalArgumentException("Can't insert null.");
+            }
+        }
+
+        int i = 0;
+        if(spilled == 0) {
+            for(; i < items.length && memory.size() < memoryCapacity; i++) {
+                memory.add(items[i]);
+            }
+        }
+        for(; i < items.length; i++) {
+            disk.add(items[i]);
+            spilled++;
+        }
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     * @throws UncheckedIOException If a spill file can't be read or deleted.
+     */
+    @Override
+    public synchronized T remove() {
+        checkOpen();
+        if(memory.size() == 0) {
+            refill();
+        }
+        return memory.remove();
+    }
+
+    /**
+     * The total number of elements, in memory and on disk.
+     */
+    public synchronized long size() {
+        return memory.size() + spilled;
+    }
+
+    /**
+     * The number of elements currently on disk.
+     */
+    public synchronized long spilled() {
+        return spilled;
+    }
+
+    /**
+     * Stop using the queue and delete the spill files, along with any elements still in them.
+     *
+     * @throws UncheckedIOException If the spill files can't be deleted.
+     */
+    @Override
+    public synchronized void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        disk.close();
+
+        try(Stream<Path> files = Files.list(spillDirectory)) {
+            for(Path file : (Iterable<Path>)files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(spillDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkOpen() {
+        if(closed) {
+            throw new IllegalStateException("This queue is closed.");
+        }
+    }
+
+    /**
+     * Move the oldest spilled elements into memory, as many as fit, in a single batch.
+     */
+    private void refill() {
+        if(spilled == 0) {
+            return;
+        }
+
+        // If decoding fails partway through, the elements before it have already moved, so count them as they go.
+        int[] moved = {0};
+        try {
+            disk.drainTo(item -> {
+                memory.add(item);
+                moved[0]++;
+            }, (int)Math.min(spilled, memoryCapacity));
+        } finally {
+            spilled -= moved[0];
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, wait-free queue for handing elements from exactly one producer thread to exactly one consumer thread.
+ *
+ * Because each counter has only one writer, there's no need for locks or CAS. The producer publishes a new element by
+ * writing it into the array and then bumping the head counter with a release store, which the consumer picks up with
+ * an acquire load (and vice versa for the tail counter). Each side also keeps a private, cached copy of the other
+ * side's counter and only rereads the shared one when the cached copy says the queue is full or empty. That way the
+ * two threads rarely touch each other's cache lines at all.
+ *
+ * The behavior is undefined if more than one thread calls add() or offer(), or if more than one thread calls remove().
+ * Null elements aren't allowed, because remove() uses null to signal that the queue is empty.
+ *
+ * @author Brian Gordon
+ */
+public class SpscArrayQueue<T> implements Queue<T> {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // The largest power of two which can be the length of an array.
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final Object[] ary;
+
+    // The capacity is a power of two, so we can map a counter to a slot index with a mask instead of modulus.
+    private final int mask;
+
+    // The number of elements ever added. Written only by the producer.
+    private final Sequence headSeq = new Sequence(0);
+
+    // The producer's most recent reading of tailSeq.
+    private final Sequence tailCache = new Sequence(0);
+
+    // The number of elements ever removed. Written only by the consumer.
+    private final Sequence tailSeq = new Sequence(0);
+
+    // The consumer's most recent reading of headSeq.
+    private final Sequence headCache = new Sequence(0);
+
+    public SpscArrayQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum number of elements the queue can hold. This will be rounded up to a power of two.
+     */
+    public SpscArrayQueue(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be at least 1.");
+        }
+        if(capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be at most " + MAX_CAPACITY + ".");
+        }
+
+        int actualCapacity = QueueSupport.ceilingPowerOfTwo(capacity);
+        ary = new Object[actualCapacity];
+        mask = actualCapacity - 1;
+    }
+
+    /**
+     * Add a new element to the head of the queue. Must only be called from the producer thread.
+     *
+     * @throws IllegalStateException If the queue is full.
+     */
+    @Override
+    public void add(T data) {
+        if(!offer(data)) {
+            throw new IllegalStateException("This queue is full.");
+        }
+    }
+
+    /**
+     * Add a new element to the head of the queue if there's room for it. Must only be called from the producer thread.
+     *
+     * @return True if the element was added, or false if the queue is full
+     */
+    @Override
+    public boolean offer(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        long head = headSeq.getPlain();
+        if(head - tailCache.getPlain() > mask) {
+            // The queue looked full the last time we checked. See whether the consumer has made progress since.
+            long tail = tailSeq.get();
+            tailCache.setPlain(tail);
+            if(head - tail > mask) {
+                return false;
+            }
+        }
+
+        ary[(int)(head & mask)] = data;
+        headSeq.set(head + 1);
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the tail of this queue. Must only be called from the consumer thread.
+     *
+     * @return The element at the tail of this queue, or null if this queue is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove() {
+        long tail = tailSeq.getPlain();
+        if(tail >= headCache.getPlain()) {
+            // The queue looked empty the last time we checked. See whether the producer has made progress since.
+            long head = headSeq.get();
+            headCache.setPlain(head);
+            if(tail >= head) {
+                return null;
+            }
+        }
+
+        int idx = (int)(tail & mask);
+        T ret = (T)ary[idx];
+        ary[idx] = null;
+        tailSeq.set(tail + 1);
+        return ret;
+    }
+
+    /**
+     * Add all of the given elements to the head of the queue, in order, with a single System.arraycopy() (two if the
+     * run wraps around the end of the array) and a single release store. Must only be called from the producer thread.
+     *
+     * @throws IllegalStateException If the queue doesn't have room for all of the elements. None of them are added.
+     */
+    @Override
+    public void addAll(T[] items) {
+        int count = items.length;
+        for(T item : items) {
+            if(item == null) {
+                throw new IllegalArgumentException("Can't insert null.");
+            }
+        }
+
+        long head = headSeq.getPlain();
+        if(head + count - tailCache.getPlain() > capacity()) {
+            long tail = tailSeq.get();
+            tailCache.setPlain(tail);
+            if(head + count - tail > capacity()) {
+                throw new IllegalStateException("This queue is full.");
+            }
+        }
+
+        int startIdx = (int)(head & mask);
+        int firstRun = Math.min(count, ary.length - startIdx);
+        System.arraycopy(items, 0, ary, startIdx, firstRun);
+        System.arraycopy(items, firstRun, ary, 0, count - firstRun);
+        headSeq.set(head + count);
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue, publishing the new tail only once at the end. Must
+     * only be called from the consumer thread.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        long tail = tailSeq.getPlain();
+        int count = available(tail, maxElements);
+
+        int i = 0;
+        try {
+            for(; i<count; i++) {
+                int idx = (int)((tail + i) & mask);
+                T item = (T)ary[idx];
+                ary[idx] = null;
+                consumer.accept(item);
+            }
+        } finally {
+            // If the consumer threw, only give up the slots whose elements it was actually passed.
+            tailSeq.set(tail + Math.min(i + 1, count));
+        }
+
+        return count;
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue with a single System.arraycopy() (two if the run
+     * wraps around the end of the array) and a single release store. Must only be called from the consumer thread.
+     */
+    @Override
+    public int drainTo(T[] target, int maxElements) {
+        QueueSupport.checkDrainTarget(target.length, maxElements);
+
+        long tail = tailSeq.getPlain();
+        int count = available(tail, maxElements);
+
+        int startIdx = (int)(tail & mask);
+        int firstRun = Math.min(count, ary.length - startIdx);
+        System.arraycopy(ary, startIdx, target, 0, firstRun);
+        System.arraycopy(ary, 0, target, firstRun, count - firstRun);
+        Arrays.fill(ary, startIdx, startIdx + firstRun, null);
+        Arrays.fill(ary, 0, count - firstRun, null);
+        tailSeq.set(tail + count);
+
+        return count;
+    }
+
+    /**
+     * Figure out how many elements, up to max, the consumer can remove starting at the given tail.
+     */
+    private int available(long tail, int max) {
+        long head = headCache.getPlain();
+        if(head - tail < max) {
+            head = headSeq.get();
+            headCache.setPlain(head);
+        }
+        return (int)Math.min(head - tail, max);
+    }
+
+    /**
+     * The maximum number of elements this queue can hold.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,133 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe queue which spreads its elements across several independent lanes, so that threads working through
+ * different lanes don't contend on the same head and tail counters.
+ *
+ * Each thread is assigned a home lane the first time it touches any StripedQueue, and it always adds to that lane.
+ * When removing, a thread tries its home lane first and then steals from the other lanes in turn.
+ *
+ * The ordering guarantee is weaker than that of a single queue. Elements added by the same thread come out in the
+ * order they were added (each lane is FIFO, and a thread always uses the same lane), but elements added by different
+ * threads may come out in any order. remove() may also return null while another thread is adding to a lane that
+ * remove() already checked.
+ *
+ * @author Brian Gordon
+ */
+public class StripedQueue<T> implements Queue<T> {
+    // Hands out home lanes round-robin, so that threads spread evenly over the lanes.
+    private static final AtomicInteger NEXT_PROBE = new AtomicInteger();
+
+    private static final ThreadLocal<Integer> PROBE = ThreadLocal.withInitial(NEXT_PROBE::getAndIncrement);
+
+    private final Queue<T>[] lanes;
+
+    // The number of lanes is a power of two, so we can map a probe to a lane with a mask instead of modulus.
+    private final int mask;
+
+    /**
+     * Create a queue with one unbounded lane per available processor, rounded up to a power of two.
+     */
+    public StripedQueue() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a queue with the given number of unbounded lanes, rounded up to a power of two.
+     */
+    public StripedQueue(int lanes) {
+        this(lanes, LockFreeLinkedQueue::new);
+    }
+
+    /**
+     * @param lanes The number of lanes. This will be rounded up to a power of two.
+     * @param laneFactory Makes each lane. The lanes must be thread-safe.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StripedQueue(int lanes, Supplier<? extends Queue<T>> laneFactory) {
+        if(lanes <= 0) {
+            throw new IllegalArgumentException("There must be at least one lane.");
+        }
+        if(lanes > 1 << 16) {
+            throw new IllegalArgumentException("There can be at most " + (1 << 16) + " lanes.");
+        }
+
+        int actualLanes = QueueSupport.ceilingPowerOfTwo(lanes);
+        this.lanes = new Queue[actualLanes];
+        for(int i=0; i<actualLanes; i++) {
+            this.lanes[i] = laneFactory.get();
+        }
+        mask = actualLanes - 1;
+    }
+
+    /**
+     * Add a new element to the head of the calling thread's home lane.
+     */
+    @Override
+    public void add(T data) {
+        lanes[homeLane()].add(data);
+    }
+
+    /**
+     * Add a new element to the head of the calling thread's home lane, if that lane has room for it.
+     */
+    @Override
+    public boolean offer(T data) {
+        return lanes[homeLane()].offer(data);
+    }
+
+    /**
+     * Retrieves and removes the tail of the calling thread's home lane, or if that's empty, of one of the other lanes.
+     *
+     * @return The removed element, or null if every lane was empty when it was checked
+     */
+    @Override
+    public T remove() {
+        int home = homeLane();
+        for(int i=0; i<lanes.length; i++) {
+            T ret = lanes[(home + i) & mask].remove();
+            if(ret != null) {
+                return ret;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add all of the given elements to the calling thread's home lane, in order.
+     */
+    @Override
+    public void addAll(T[] items) {
+        lanes[homeLane()].addAll(items);
+    }
+
+    /**
+     * Drain the calling thread's home lane, and then steal from the other lanes until maxElements have been removed.
+     */
+    @Override
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        int home = homeLane();
+        int count = 0;
+        for(int i=0; i<lanes.length && count < maxElements; i++) {
+            count += lanes[(home + i) & mask].drainTo(consumer, maxElements - count);
+        }
+        return count;
+    }
+
+    /**
+     * The number of lanes, after rounding up to a power of two.
+     */
+    public int lanes() {
+        return lanes.length;
+    }
+
+    private int homeLane() {
+        return PROBE.get() & mask;
+    }
+}
@@ -1,11 +1,24 @@
 package name.brian_gordon.collections.queues;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
 /**
  * A thread-safe array-backed queue which uses coarse-grained locking.
  *
+ * Iterators and spliterators are weakly consistent. They copy references to the elements out in batches of up to
+ * ITERATION_BATCH, taking the lock once per batch, so they never see a half-finished change and never throw
+ * ConcurrentModificationException, and a traversal never copies the whole queue at once. Each batch carries on from
+ * where the previous one stopped: elements which were removed in the meantime are skipped, and elements which were
+ * added in the meantime are included. Splitting hands off the current batch as a sized spliterator of its own.
+ *
  * @author Brian Gordon
  */
-public class SynchronizedArrayQueue<T> implements Queue<T> {
+public class SynchronizedArrayQueue<T> implements IterableQueue<T> {
+    // The most elements a spliterator copies out while holding the lock.
+    static final int ITERATION_BATCH = 1024;
+
     private Object[] ary;
 
     // The number of items the backing array can hold before needing to grow.
@@ -20,6 +33,13 @@ public class SynchronizedArrayQueue<T> implements Queue<T> {
     // The index pointing to the next element to be removed.
     private int tailIdx = 0;
 
+    // The number of elements ever removed, which is also the position of the element at the tail, counting from the
+    // first element ever added. Spliterators use it to find their place again.
+    private long removals = 0;
+
+    // Where resizes are recorded, or null if nobody is interested.
+    private QueueMetrics metrics = null;
+
     public SynchronizedArrayQueue() {
         this(10);
     }
@@ -57,16 +77,99 @@ public class SynchronizedArrayQueue<T> implements Queue<T> {
      */
     @Override
     public synchronized T remove() {
-        if(size == 0) {
-            return null;
+        return size == 0 ? null : takeTail();
+    }
+
+    /**
+     * Add all of the given elements to the head of the queue, in order, while taking the lock only once.
+     *
+     * This queue stores its elements in descending index order, so the new elements have to be written back to front
+     * one at a time rather than with System.arraycopy(). Any growth still happens in a single ensure() call.
+     */
+    @Override
+    public synchronized void addAll(T[] items) {
+        ensure(size + items.length);
+
+        int idx = headIdx;
+        for(T item : items) {
+            ary[idx] = item;
+            if(--idx < 0) {
+                idx = capacity - 1;
+            }
+        }
+
+        headIdx = idx;
+        size += items.length;
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue while taking the lock only once. The consumer is
+     * called while the lock is held, so it should be quick.
+     */
+    @Override
+    public synchronized int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        int count = Math.min(size, maxElements);
+        for(int i=0; i<count; i++) {
+            consumer.accept(takeTail());
+        }
+
+        return count;
+    }
+
+    /**
+     * Remove up to maxElements elements from the tail of the queue while taking the lock only once.
+     */
+    @Override
+    public synchronized int drainTo(T[] target, int maxElements) {
+        QueueSupport.checkDrainTarget(target.length, maxElements);
+
+        int count = Math.min(size, maxElements);
+        for(int i=0; i<count; i++) {
+            target[i] = takeTail();
         }
 
+        return count;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized Spliterator<T> spliterator() {
+        return new BatchSpliterator(removals);
+    }
+
+    /**
+     * The number of elements at or after the given position which are still in the queue.
+     */
+    private synchronized long remainingFrom(long position) {
+        return Math.max(removals + size - Math.max(position, removals), 0);
+    }
+
+    /**
+     * Record resizes of the backing array in the given metrics. Pass null to stop recording.
+     */
+    public synchronized void setMetrics(QueueMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Remove the element at the tail and clear its slot. Must be called while holding the lock, and only if the queue
+     * isn't empty.
+     */
+    @SuppressWarnings("unchecked")
+    private T takeTail() {
         T ret = (T)ary[tailIdx];
-        tailIdx = (tailIdx - 1) % capacity;
-        if(tailIdx < 0) {
-            tailIdx += capacity;
+        ary[tailIdx] = null;
+        if(--tailIdx < 0) {
+            tailIdx = capacity - 1;
         }
         size--;
+        removals++;
 
         return ret;
     }
@@ -132,8 +235,11 @@ public class SynchronizedArrayQueue<T> implements Queue<T> {
         // a size greater than MAX_ARRAY_SIZE and we're running on a VM which doesn't allow it.
         Object[] newAry = new Object[newCapacity];
 
-        // Unroll the old circular array so that we can add empty space at the end.
-        if(headIdx < tailIdx) {
+        // Unroll the old circular array so that we can add empty space at the end. An empty queue has nothing to unroll,
+        // which batch adds can run into.
+        if(size == 0) {
+            // Nothing to copy.
+        } else if(headIdx < tailIdx) {
             // The queue items are in one contiguous chunk. Just copy the chunk to the new array.
             System.arraycopy(ary, headIdx + 1 , newAry, 0, tailIdx - headIdx);
         } else if(headIdx == capacity - 1) {
@@ -146,8 +252,114 @@ public class SynchronizedArrayQueue<T> implements Queue<T> {
         }
 
         headIdx = newCapacity - 1;
-        tailIdx = size - 1;
+        tailIdx = size == 0 ? headIdx : size - 1;
         ary = newAry;
+
+        if(metrics != null) {
+            metrics.recordResize(capacity, newCapacity);
+        }
         capacity = newCapacity;
     }
+
+    /**
+     * Walks the queue by position, copying out one batch at a time under the lock.
+     */
+    private final class BatchSpliterator implements Spliterator<T> {
+        // The position of the element after the last one in the current batch.
+        private long next;
+
+        private Object[] batch = new Object[ITERATION_BATCH];
+        private int batchIdx = 0;
+        private int batchLen = 0;
+
+        BatchSpliterator(long next) {
+            this.next = next;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if(!fill()) {
+                return false;
+            }
+            T item = (T)batch[batchIdx];
+            batch[batchIdx++] = null;
+            action.accept(item);
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super T> action) {
+            while(fill()) {
+                // Call the action outside of the lock, one batch at a time.
+                while(batchIdx < batchLen) {
+                    T item = (T)batch[batchIdx];
+                    batch[batchIdx++] = null;
+                    action.accept(item);
+                }
+            }
+        }
+
+        /**
+         * Hand off the rest of the current batch, which comes before everything this spliterator has left to visit.
+         */
+        @Override
+        public Spliterator<T> trySplit() {
+            if(!fill()) {
+                return null;
+            }
+
+            Spliterator<T> prefix = Spliterators.spliterator(batch, batchIdx, batchLen,
+                    Spliterator.ORDERED | Spliterator.IMMUTABLE);
+            batch = new Object[ITERATION_BATCH];
+            batchIdx = batchLen = 0;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return batchLen - batchIdx + remainingFrom(next);
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.CONCURRENT;
+        }
+
+        /**
+         * Make sure there's at least one element left in the current batch, copying out the next batch if necessary.
+         *
+         * @return False if there are no more elements
+         */
+        private boolean fill() {
+            if(batchIdx < batchLen) {
+                return true;
+            }
+
+            synchronized(SynchronizedArrayQueue.this) {
+                // Skip anything which was removed since the last batch.
+                long start = Math.max(next, removals);
+                int offset = (int)(start - removals);
+                batchLen = Math.max(Math.min(batch.length, size - offset), 0);
+
+                // Elements are stored in descending index order, starting from the tail.
+                int idx = tailIdx - offset;
+                if(idx < 0) {
+                    idx += capacity;
+                }
+                for(int i=0; i<batchLen; i++) {
+                    batch[i] = ary[idx];
+                    if(--idx < 0) {
+                        idx = capacity - 1;
+                    }
+                }
+
+                next = start + batchLen;
+            }
+
+            batchIdx = 0;
+            return batchLen > 0;
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package name.brian_gordon.collections.queues;
+
+/**
+ * A thread-safe queue of primitive ints which uses coarse-grained locking around an IntArrayQueue. Because other
+ * threads may empty the queue between a call to isEmpty() and a call to remove(), consumers should use removeOrElse()
+ * instead.
+ *
+ * @author Brian Gordon
+ */
+public class SynchronizedIntArrayQueue extends IntArrayQueue {
+    public SynchronizedIntArrayQueue() {
+        super();
+    }
+
+    public SynchronizedIntArrayQueue(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    @Override
+    public synchronized void add(int data) {
+        super.add(data);
+    }
+
+    @Override
+    public synchronized int remove() {
+        return super.remove();
+    }
+
+    @Override
+    public synchronized int removeOrElse(int emptyValue) {
+        return super.removeOrElse(emptyValue);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return super.isEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return super.size();
+    }
+
+    @Override
+    public synchronized void addAll(int[] items) {
+        super.addAll(items);
+    }
+
+    @Override
+    public synchronized int drainTo(int[] target, int maxElements) {
+        return super.drainTo(target, maxElements);
+    }
+}
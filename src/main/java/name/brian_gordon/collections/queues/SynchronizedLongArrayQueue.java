@@ -0,0 +1,53 @@
+package name.brian_gordon.collections.queues;
+
+/**
+ * A thread-safe queue of primitive longs which uses coarse-grained locking around an LongArrayQueue. Because other
+ * threads may empty the queue between a call to isEmpty() and a call to remove(), consumers should use removeOrElse()
+ * instead.
+ *
+ * @author Brian Gordon
+ */
+public class SynchronizedLongArrayQueue extends LongArrayQueue {
+    public SynchronizedLongArrayQueue() {
+        super();
+    }
+
+    public SynchronizedLongArrayQueue(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    @Override
+    public synchronized void add(long data) {
+        super.add(data);
+    }
+
+    @Override
+    public synchronized long remove() {
+        return super.remove();
+    }
+
+    @Override
+    public synchronized long removeOrElse(long emptyValue) {
+        return super.removeOrElse(emptyValue);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return super.isEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return super.size();
+    }
+
+    @Override
+    public synchronized void addAll(long[] items) {
+        super.addAll(items);
+    }
+
+    @Override
+    public synchronized int drainTo(long[] target, int maxElements) {
+        return super.drainTo(target, maxElements);
+    }
+}
@@ -0,0 +1,336 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A thread-safe delay queue based on a hierarchical timing wheel. Elements are scheduled to expire after a delay, and
+ * remove() only ever returns elements which have expired. Scheduling and cancelling are O(1), no matter how many
+ * timers are pending.
+ *
+ * Time is divided into ticks of a configurable length. The wheel has several levels of 64 slots each: a slot on level
+ * 0 covers one tick, a slot on level 1 covers 64 ticks, a slot on level 2 covers 4096, and so on. A timer goes on the
+ * lowest level whose slot size is big enough that it shares a slot on the next level up with the current tick, which
+ * is found from the highest bit where the two tick counts differ. When time reaches a slot on a higher level, its
+ * timers are cascaded down onto lower levels, and when time reaches a slot on level 0, its timers have expired.
+ *
+ * Each level keeps a bitmap of which of its slots are occupied, so the wheel can jump straight to the next occupied
+ * slot instead of stepping through empty ticks one at a time. Catching up after being idle costs time proportional
+ * to the number of timers that expired, not to the number of ticks that passed.
+ *
+ * Timers never expire early, but they may expire up to one tick late. Elements which expire during the same tick come
+ * out in no particular order. add() makes an element available immediately, in FIFO order with other expired
+ * elements. Null elements aren't allowed, because remove() uses null to signal that nothing has expired.
+ *
+ * @author Brian Gordon
+ */
+public class TimingWheelQueue<T> implements Queue<T> {
+    // Each level has 2^SLOT_BITS slots, so that a level's occupied slots fit in a long.
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    // Enough levels to cover every non-negative long tick count.
+    private static final int LEVELS = (63 + SLOT_BITS - 1) / SLOT_BITS;
+
+    // The bucket number of the list of expired timers. Buckets below this are wheel slots, at level * SLOTS + slot.
+    private static final int EXPIRED = LEVELS * SLOTS;
+
+    // The bucket number of a timer which isn't in any list, because it was removed or cancelled.
+    private static final int DETACHED = -1;
+
+    // Deadlines further out than this are clamped, so that tick arithmetic never overflows.
+    private static final long MAX_TICKS = Long.MAX_VALUE / 2;
+
+    private final LongSupplier clock;
+    private final long tickNanos;
+
+    // The clock reading which counts as tick 0.
+    private final long origin;
+
+    // The last tick that the wheel was advanced to.
+    private long currentTick = 0;
+
+    // The first and last timer in each bucket, linked through their prev and next pointers.
+    private final Timeout<T>[] heads = newBuckets();
+    private final Timeout<T>[] tails = newBuckets();
+
+    // Bit i of occupied[level] is set if slot i on that level has any timers in it.
+    private final long[] occupied = new long[LEVELS];
+
+    // The number of timers in any bucket, including expired ones.
+    private int size = 0;
+
+    /**
+     * Create a queue with millisecond ticks, using System.nanoTime() as the clock.
+     */
+    public TimingWheelQueue() {
+        this(1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a queue with the given tick length, using System.nanoTime() as the clock.
+     */
+    public TimingWheelQueue(long tickDuration, TimeUnit unit) {
+        this(tickDuration, unit, System::nanoTime);
+    }
+
+    /**
+     * @param tickDuration The resolution of the wheel. Timers may expire up to this much later than requested.
+     * @param clock Returns the current time in nanoseconds, like System.nanoTime().
+     */
+    public TimingWheelQueue(long tickDuration, TimeUnit unit, LongSupplier clock) {
+        tickNanos = unit.toNanos(tickDuration);
+        if(tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick duration must be at least one nanosecond.");
+        }
+
+        this.clock = clock;
+        origin = clock.getAsLong();
+    }
+
+    /**
+     * Schedule an element to expire after the given delay.
+     *
+     * @return A handle which can cancel the timer
+     */
+    public synchronized Timeout<T> schedule(T element, long delay, TimeUnit unit) {
+        if(element == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        // Saturate rather than overflow for huge delays. toNanos() already saturates at Long.MAX_VALUE, so adding the
+        // elapsed time to that would wrap around to a deadline in the past.
+        long elapsed = elapsedNanos();
+        long deadlineNanos = elapsed + Math.min(Math.max(unit.toNanos(delay), 0), Long.MAX_VALUE - elapsed);
+
+        // Round the deadline up to the next tick boundary, so that the element never expires early.
+        long deadlineTick = deadlineNanos / tickNanos + (deadlineNanos % tickNanos == 0 ? 0 : 1);
+
+        Timeout<T> timeout = new Timeout<>(this, element, Math.min(deadlineTick, MAX_TICKS));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Add an element which has already expired, so that it's available to remove() right away.
+     */
+    @Override
+    public synchronized void add(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        link(new Timeout<>(this, data, currentTick), EXPIRED);
+        size++;
+    }
+
+    /**
+     * Retrieves and removes an expired element.
+     *
+     * @return An element whose timer has expired, or null if there are none
+     */
+    @Override
+    public synchronized T remove() {
+        advance();
+
+        Timeout<T> timeout = heads[EXPIRED];
+        if(timeout == null) {
+            return null;
+        }
+
+        unlink(timeout);
+        size--;
+        return timeout.element;
+    }
+
+    /**
+     * Remove up to maxElements expired elements. The wheel is only advanced once, and the consumer is called while the
+     * lock is held, so it should be quick.
+     */
+    @Override
+    public synchronized int drainTo(Consumer<? super T> consumer, int maxElements) {
+        QueueSupport.checkDrainCount(maxElements);
+
+        advance();
+
+        int count = 0;
+        while(count < maxElements && heads[EXPIRED] != null) {
+            Timeout<T> timeout = heads[EXPIRED];
+            unlink(timeout);
+            size--;
+            count++;
+            consumer.accept(timeout.element);
+        }
+
+        return count;
+    }
+
+    /**
+     * Remove every element which has expired.
+     *
+     * @return The number of elements passed to the consumer
+     */
+    public int drainExpired(Consumer<? super T> consumer) {
+        return drainTo(consumer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The number of elements in the queue, whether or not they've expired yet.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private long elapsedNanos() {
+        return clock.getAsLong() - origin;
+    }
+
+    /**
+     * Bring the wheel up to the current time, moving every timer whose deadline has passed onto the expired list.
+     */
+    private void advance() {
+        long nowTick = Math.min(elapsedNanos() / tickNanos, MAX_TICKS);
+
+        while(true) {
+            // Every timer on a lower level expires before any timer on a higher level, so find the lowest occupied
+            // level and its earliest occupied slot.
+            int level = 0;
+            while(level < LEVELS && occupied[level] == 0) {
+                level++;
+            }
+            if(level == LEVELS) {
+                break;
+            }
+
+            int slot = Long.numberOfTrailingZeros(occupied[level]);
+            long slotStart = epochStart(level) | ((long)slot << (SLOT_BITS * level));
+            if(slotStart > nowTick) {
+                break;
+            }
+
+            // Jump to the start of the slot and redistribute its timers. The ones due at exactly this tick expire,
+            // and the rest cascade down to lower levels.
+            currentTick = slotStart;
+            int bucket = level * SLOTS + slot;
+            Timeout<T> timeout = heads[bucket];
+            heads[bucket] = tails[bucket] = null;
+            occupied[level] &= ~(1L << slot);
+
+            while(timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.prev = timeout.next = null;
+                place(timeout);
+                timeout = next;
+            }
+        }
+
+        currentTick = Math.max(currentTick, nowTick);
+    }
+
+    /**
+     * The first tick of the slot on the next level up from the given level which contains the current tick. Every
+     * timer on the given level is due within that slot.
+     */
+    private long epochStart(int level) {
+        int shift = SLOT_BITS * (level + 1);
+        return shift >= 63 ? 0 : currentTick & -(1L << shift);
+    }
+
+    /**
+     * Put a timer in the bucket it belongs in, given the current tick.
+     */
+    private void place(Timeout<T> timeout) {
+        long deadline = timeout.deadlineTick;
+        if(deadline <= currentTick) {
+            link(timeout, EXPIRED);
+            return;
+        }
+
+        // The highest bit where the deadline differs from the current tick tells us which level it belongs on.
+        int level = (63 - Long.numberOfLeadingZeros(deadline ^ currentTick)) / SLOT_BITS;
+        int slot = (int)(deadline >>> (SLOT_BITS * level)) & SLOT_MASK;
+        link(timeout, level * SLOTS + slot);
+        occupied[level] |= 1L << slot;
+    }
+
+    private void link(Timeout<T> timeout, int bucket) {
+        timeout.bucket = bucket;
+        timeout.prev = tails[bucket];
+        if(tails[bucket] == null) {
+            heads[bucket] = timeout;
+        } else {
+            tails[bucket].next = timeout;
+        }
+        tails[bucket] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        int bucket = timeout.bucket;
+        if(timeout.prev == null) {
+            heads[bucket] = timeout.next;
+        } else {
+            timeout.prev.next = timeout.next;
+        }
+        if(timeout.next == null) {
+            tails[bucket] = timeout.prev;
+        } else {
+            timeout.next.prev = timeout.prev;
+        }
+
+        if(bucket != EXPIRED && heads[bucket] == null) {
+            occupied[bucket / SLOTS] &= ~(1L << (bucket & SLOT_MASK));
+        }
+
+        timeout.prev = timeout.next = null;
+        timeout.bucket = DETACHED;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <U> Timeout<U>[] newBuckets() {
+        return new Timeout[EXPIRED + 1];
+    }
+
+    /**
+     * A handle to an element scheduled in a TimingWheelQueue.
+     */
+    public static final class Timeout<T> {
+        private final TimingWheelQueue<T> queue;
+        private final T element;
+        private final long deadlineTick;
+
+        // Guarded by the queue's lock.
+        private int bucket = DETACHED;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(TimingWheelQueue<T> queue, T element, long deadlineTick) {
+            this.queue = queue;
+            this.element = element;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T element() {
+            return element;
+        }
+
+        /**
+         * Take the element out of the queue, whether or not it has expired yet.
+         *
+         * @return True if the element was still in the queue, or false if it had already been removed or cancelled
+         */
+        public boolean cancel() {
+            synchronized(queue) {
+                if(bucket == DETACHED) {
+                    return false;
+                }
+
+                queue.unlink(this);
+                queue.size--;
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides what a RingBuffer consumer does while it waits for more events to become available. The strategies trade
+ * latency for CPU: busy-spinning reacts fastest but burns a whole core per consumer, and parking is kindest to the
+ * rest of the machine but takes longest to notice new events.
+ *
+ * None of these strategies need producers to signal anything, so publishing an event never costs more than a store.
+ *
+ * @author Brian Gordon
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+    /**
+     * Spin without ever giving up the CPU. Only suitable when every consumer has a core to itself.
+     */
+    WaitStrategy BUSY_SPIN = attempt -> Thread.onSpinWait();
+
+    /**
+     * Spin for a while, then yield to other threads between checks.
+     */
+    WaitStrategy YIELDING = attempt -> {
+        if(attempt < 100) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    };
+
+    /**
+     * Spin, then yield, then park for 50 microseconds at a time.
+     */
+    WaitStrategy PARKING = parking(50_000);
+
+    /**
+     * Called each time a consumer checks for events and finds none.
+     *
+     * @param attempt The number of checks in a row which have found nothing, starting from 0
+     */
+    void idle(int attempt);
+
+    /**
+     * Spin, then yield, then park for the given number of nanoseconds at a time.
+     */
+    static WaitStrategy parking(long parkNanos) {
+        return attempt -> {
+            if(attempt < 100) {
+                Thread.onSpinWait();
+            } else if(attempt < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(parkNanos);
+            }
+        };
+    }
+}
@@ -0,0 +1,166 @@
+package name.brian_gordon.collections.queues;
+
+/**
+ * A Chase-Lev work-stealing deque, as described in "Dynamic Circular Work-Stealing Deque" (2005), with the memory
+ * ordering from "Correct and Efficient Work-Stealing for Weak Memory Models" (2013).
+ *
+ * The deque has one owner thread, which pushes and pops at the bottom, so it works through its own elements in LIFO
+ * order while they're still warm in its cache. Any number of other threads can steal from the top, which gets them
+ * the oldest elements. The owner only contends with thieves when there's a single element left, and thieves only
+ * contend with each other on a single CAS of the top counter.
+ *
+ * The elements live in a circular array which the owner doubles whenever it fills up. Thieves may still be reading
+ * the old array when that happens, which is fine, because the owner never writes to it again and the elements a thief
+ * can claim are at the same indexes in both arrays. For the same reason, stolen slots aren't cleared: a slow thief
+ * might still be about to read them. They're overwritten once the owner wraps around the array.
+ *
+ * push() and pop() must only be called by the owner thread. Null elements aren't allowed, because pop() and steal()
+ * use null to signal that the deque is empty.
+ *
+ * @author Brian Gordon
+ */
+public class WorkStealingDeque<T> {
+    private static final int DEFAULT_INITIAL_CAPACITY = 32;
+
+    // The largest power of two which can be the length of an array.
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // The index that the next steal() will take from. Only ever incremented, and only by a successful CAS.
+    private final Sequence top = new Sequence(0);
+
+    // The index that the next push() will write to. Only written by the owner.
+    private final Sequence bottom = new Sequence(0);
+
+    // The length is always a power of two, so we can map an index to a slot with a mask instead of modulus.
+    private volatile Object[] array;
+
+    public WorkStealingDeque() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity The number of elements the deque can hold before it has to grow. This will be rounded up
+     *                        to a power of two.
+     */
+    public WorkStealingDeque(int initialCapacity) {
+        if(initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be at least 1.");
+        }
+        if(initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Initial capacity must be at most " + MAX_CAPACITY + ".");
+        }
+
+        array = new Object[QueueSupport.ceilingPowerOfTwo(initialCapacity)];
+    }
+
+    /**
+     * Add an element to the bottom of the deque. Must only be called by the owner.
+     */
+    public void push(T data) {
+        if(data == null) {
+            throw new IllegalArgumentException("Can't insert null.");
+        }
+
+        long b = bottom.getPlain();
+        long t = top.get();
+        Object[] a = array;
+        if(b - t >= a.length) {
+            a = grow(a, t, b);
+        }
+
+        a[(int)(b & (a.length - 1))] = data;
+
+        // Publish the element to thieves.
+        bottom.set(b + 1);
+    }
+
+    /**
+     * Retrieves and removes the element at the bottom of the deque, which is the one most recently pushed. Must only be
+     * called by the owner.
+     *
+     * @return The element at the bottom of the deque, or null if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T pop() {
+        long b = bottom.getPlain() - 1;
+        Object[] a = array;
+
+        // Reserve the bottom element before looking at the top. This has to be a volatile write followed by a volatile
+        // read, so that a thief can't read the old bottom while we read the old top, and both take the same element.
+        bottom.setVolatile(b);
+        long t = top.getVolatile();
+
+        if(t > b) {
+            // The deque was already empty.
+            bottom.setPlain(b + 1);
+            return null;
+        }
+
+        int idx = (int)(b & (a.length - 1));
+        T ret = (T)a[idx];
+        if(t < b) {
+            // There's more than one element, so no thief can be after this one.
+            a[idx] = null;
+            return ret;
+        }
+
+        // This is the last element. Race the thieves for it by claiming it through the top, like they do.
+        if(!top.compareAndSet(t, t + 1)) {
+            ret = null;
+        }
+        bottom.setPlain(b + 1);
+        return ret;
+    }
+
+    /**
+     * Retrieves and removes the element at the top of the deque, which is the oldest one. Can be called by any thread.
+     *
+     * @return The element at the top of the deque, or null if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T steal() {
+        while(true) {
+            long t = top.getVolatile();
+            long b = bottom.getVolatile();
+            if(t >= b) {
+                return null;
+            }
+
+            // Read the element before claiming it, since once we've claimed it the owner may overwrite the slot.
+            Object[] a = array;
+            T ret = (T)a[(int)(t & (a.length - 1))];
+            if(top.compareAndSet(t, t + 1)) {
+                return ret;
+            }
+            // Another thief or the owner got there first. Try the next element.
+        }
+    }
+
+    /**
+     * The number of elements in the deque. This is only an estimate while other threads are stealing.
+     */
+    public int size() {
+        long size = bottom.getVolatile() - top.getVolatile();
+        return (int)Math.max(size, 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Copy the elements from top to bottom into an array twice as big, at the same indexes modulo the new length.
+     */
+    private Object[] grow(Object[] a, long t, long b) {
+        if(a.length >= MAX_CAPACITY) {
+            throw new IllegalStateException("This deque is full.");
+        }
+
+        Object[] newArray = new Object[a.length * 2];
+        for(long i=t; i<b; i++) {
+            newArray[(int)(i & (newArray.length - 1))] = a[(int)(i & (a.length - 1))];
+        }
+        array = newArray;
+        return newArray;
+    }
+}
@@ -0,0 +1,237 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A small fixed-size thread pool where every worker has its own WorkStealingDeque instead of sharing one queue.
+ *
+ * A task submitted from inside a worker is pushed onto that worker's deque, and the worker runs its own tasks newest
+ * first. A task submitted from outside goes into one worker's inbox, round-robin. A worker with nothing left to do
+ * steals the oldest task from another worker's deque, or failing that, from another worker's inbox. Only when there's
+ * nothing to steal anywhere does it park until a new task is submitted.
+ *
+ * Tasks which throw are reported to the worker thread's uncaught exception handler, and the worker carries on.
+ *
+ * @author Brian Gordon
+ */
+public class WorkStealingScheduler implements Executor {
+    private final Worker[] workers;
+
+    // Spreads external submissions across the workers' inboxes.
+    private int nextInbox = 0;
+
+    private volatile boolean shutdown = false;
+
+    // The number of execute() calls which are between checking for shutdown and finishing their enqueue. Once shutdown
+    // is set, workers wait for this to reach zero before they decide there's nothing left to do.
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    /**
+     * Create a scheduler with one worker per available processor.
+     */
+    public WorkStealingScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public WorkStealingScheduler(int threads) {
+        if(threads <= 0) {
+            throw new IllegalArgumentException("There must be at least one thread.");
+        }
+
+        workers = new Worker[threads];
+        for(int i=0; i<threads; i++) {
+            workers[i] = new Worker(i);
+        }
+        for(Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Run the given task on one of the workers.
+     *
+     * @throws RejectedExecutionException If the scheduler has been shut down
+     */
+    @Override
+    public void execute(Runnable task) {
+        if(task == null) {
+            throw new NullPointerException("Can't execute null.");
+        }
+
+        // Announce the submission before checking for shutdown. Either shutdown() hasn't happened yet and the workers
+        // will wait for this task to land, or we see it here and reject the task.
+        submitting.incrementAndGet();
+        try {
+            if(shutdown) {
+                throw new RejectedExecutionException("This scheduler has been shut down.");
+            }
+
+            Thread current = Thread.currentThread();
+            if(current instanceof Worker && ((Worker)current).scheduler() == this) {
+                ((Worker)current).deque.push(task);
+            } else {
+                // This is only a hint for spreading the load, so it doesn't matter if racing threads pick the same
+                // inbox.
+                int inbox = nextInbox;
+                nextInbox = (inbox + 1) % workers.length;
+                workers[inbox].inbox.add(task);
+            }
+        } finally {
+            submitting.decrementAndGet();
+        }
+
+        wakeIdleWorker();
+    }
+
+    /**
+     * Stop accepting new tasks. The workers finish every task that was already submitted, and then exit.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for(Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Wait for the workers to exit after shutdown().
+     *
+     * @return True if every worker exited, or false if the timeout elapsed first
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for(Worker worker : workers) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if(remainingMillis > 0) {
+                worker.join(remainingMillis);
+            }
+            if(worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void wakeIdleWorker() {
+        for(Worker worker : workers) {
+            if(worker.wake()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Find a task to steal from any worker other than the given one, starting from a random victim.
+     */
+    private Runnable steal(Worker thief) {
+        int start = ThreadLocalRandom.current().nextInt(workers.length);
+        for(int i=0; i<workers.length; i++) {
+            Worker victim = workers[(start + i) % workers.length];
+            if(victim == thief) {
+                continue;
+            }
+
+            Runnable task = victim.deque.steal();
+            if(task == null) {
+                task = victim.inbox.remove();
+            }
+            if(task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private class Worker extends Thread {
+        final WorkStealingDeque<Runnable> deque = new WorkStealingDeque<>();
+
+        // Tasks submitted from outside the scheduler. Other threads can't push onto the deque, since only the owner
+        // may do that.
+        final Queue<Runnable> inbox = new LockFreeLinkedQueue<>();
+
+        // Set just before the worker parks. Whoever flips it back to false is responsible for unparking the worker.
+        final AtomicBoolean idle = new AtomicBoolean(false);
+
+        Worker(int index) {
+            super("work-stealing-worker-" + index);
+            setDaemon(true);
+        }
+
+        WorkStealingScheduler scheduler() {
+            return WorkStealingScheduler.this;
+        }
+
+        boolean wake() {
+            if(!idle.compareAndSet(true, false)) {
+                return false;
+            }
+            LockSupport.unpark(this);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while(true) {
+                Runnable task = findTask();
+                if(task != null) {
+                    runTask(task);
+                    continue;
+                }
+
+                if(shutdown) {
+                    // A submission which got past the shutdown check may still be on its way into an inbox. Once
+                    // there are none in flight, anything they submitted is visible to one last look.
+                    if(submitting.get() != 0) {
+                        Thread.yield();
+                        continue;
+                    }
+                    task = findTask();
+                    if(task == null) {
+                        return;
+                    }
+                    runTask(task);
+                    continue;
+                }
+
+                // Announce that we're about to park, and then look for work one more time. Anyone who submitted a task
+                // before seeing the announcement put it somewhere that this second look will find.
+                idle.set(true);
+                task = findTask();
+                if(task != null) {
+                    idle.set(false);
+                    runTask(task);
+                    continue;
+                }
+                if(!shutdown) {
+                    LockSupport.park(this);
+                }
+                idle.set(false);
+            }
+        }
+
+        private Runnable findTask() {
+            Runnable task = deque.pop();
+            if(task == null) {
+                task = inbox.remove();
+            }
+            if(task == null) {
+                task = steal(this);
+            }
+            return task;
+        }
+
+        private void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch(RuntimeException | Error e) {
+                getUncaughtExceptionHandler().uncaughtException(this, e);
+            }
+        }
+    }
+}
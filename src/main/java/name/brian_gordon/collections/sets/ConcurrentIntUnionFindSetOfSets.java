@@ -0,0 +1,220 @@
+package name.brian_gordon.collections.sets;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A thread-safe, lock-free version of IntUnionFindSetOfSets, following "Concurrent Disjoint Set Union" (Jayanti and
+ * Tarjan, 2016). Any number of threads can add, union and query at the same time, and they only ever contend on the
+ * parent slots of the particular roots they're linking.
+ *
+ * A union links one root under the other with a CAS on its parent slot, which only succeeds if the node is still a
+ * root. If another thread linked it first, the union just finds the new roots and tries again. Rather than tracking
+ * sizes, which would need a second CAS, every item has a fixed pseudo-random priority, and a root is always linked
+ * under a root of higher priority. That rules out cycles, since priorities strictly increase up every path, and keeps
+ * the trees shallow in expectation, just like union by size.
+ *
+ * Finds never wait for anyone. They use path splitting: each node on the way up is pointed at its grandparent with a
+ * CAS, and a CAS which fails because another thread got there first is simply ignored, since any parent a node can
+ * have is still an ancestor in the same tree.
+ *
+ * Unlike IntUnionFindSetOfSets, the capacity is fixed when the collection is created, since growing the array safely
+ * would need every operation to coordinate with the copy.
+ */
+public class ConcurrentIntUnionFindSetOfSets implements SetOfSets<Integer> {
+	// The parent slot of an item which hasn't been added.
+	private static final int ABSENT = -1;
+
+	// parent[i] == i for a root.
+	private final AtomicIntegerArray parent;
+
+	/**
+	 * @param capacity One more than the highest item which can be added.
+	 */
+	public ConcurrentIntUnionFindSetOfSets(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity can't be negative.");
+		}
+
+		parent = new AtomicIntegerArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			parent.set(i, ABSENT);
+		}
+	}
+
+	/**
+	 * Factory method which places each of the items from 0 up to count-1 in its own independent set.
+	 */
+	public static ConcurrentIntUnionFindSetOfSets singletons(int count) {
+		var ret = new ConcurrentIntUnionFindSetOfSets(count);
+		for (int i = 0; i < count; i++) {
+			ret.parent.set(i, i);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Add a new set containing a single item.
+	 *
+	 * @throws IllegalArgumentException If the item is outside of the capacity.
+	 * @throws IllegalStateException If the item already exists in the collection.
+	 */
+	public void add(int item) {
+		if (item < 0 || item >= parent.length()) {
+			throw new IllegalArgumentException("Items must be between 0 and " + (parent.length() - 1) + ".");
+		}
+
+		if (!parent.compareAndSet(item, ABSENT, item)) {
+			throw new IllegalStateException("This collection already contains " + item);
+		}
+	}
+
+	/**
+	 * Join the set containing item1 and the set containing item2, so that they become a single set.
+	 *
+	 * @throws IllegalStateException If one or both of the given items don't exist in the collection.
+	 */
+	public void union(int item1, int item2) {
+		checkExists(item1, item2);
+
+		int root1 = item1;
+		int root2 = item2;
+		while (true) {
+			root1 = findRoot(root1);
+			root2 = findRoot(root2);
+			if (root1 == root2) {
+				return;
+			}
+
+			// Link the lower-priority root under the higher-priority one. The CAS fails if another thread has linked
+			// it in the meantime, in which case we start again from the roots we found, which are still in the right
+			// sets.
+			if (priority(root1) < priority(root2)) {
+				if (parent.compareAndSet(root1, root1, root2)) {
+					return;
+				}
+			} else {
+				if (parent.compareAndSet(root2, root2, root1)) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check whether the set containing item1 is the same as the set containing item2.
+	 *
+	 * @throws IllegalStateException If one or both of the given items don't exist in the collection.
+	 */
+	public boolean isCommonSet(int item1, int item2) {
+		checkExists(item1, item2);
+
+		int root1 = item1;
+		int root2 = item2;
+		while (true) {
+			root1 = findRoot(root1);
+			root2 = findRoot(root2);
+			if (root1 == root2) {
+				return true;
+			}
+
+			// If root1 is still a root, then it was a root for the whole time since we found it, so at the moment we
+			// found root2, the two items really were in different sets. Otherwise a union got in the way, so look
+			// again.
+			if (parent.get(root1) == root1) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Find the item at the root of the tree containing the given item. The answer may be out of date by the time it's
+	 * returned, if another thread is linking that root at the same moment.
+	 *
+	 * @throws IllegalStateException If the item doesn't exist in the collection.
+	 */
+	public int find(int item) {
+		if (!contains(item)) {
+			throw new IllegalStateException(item + " doesn't exist in the collection.");
+		}
+		return findRoot(item);
+	}
+
+	public boolean contains(int item) {
+		return item >= 0 && item < parent.length() && parent.get(item) != ABSENT;
+	}
+
+	@Override
+	public void add(Integer item) {
+		if (item == null) {
+			throw new IllegalArgumentException("Can't insert null.");
+		}
+
+		add(item.intValue());
+	}
+
+	@Override
+	public void union(Integer item1, Integer item2) {
+		checkNotNull(item1, item2);
+		union(item1.intValue(), item2.intValue());
+	}
+
+	@Override
+	public boolean isCommonSet(Integer item1, Integer item2) {
+		checkNotNull(item1, item2);
+		return isCommonSet(item1.intValue(), item2.intValue());
+	}
+
+	/**
+	 * Find the root of an item which is known to exist, splitting the path on the way.
+	 */
+	private int findRoot(int item) {
+		while (true) {
+			int itemParent = parent.get(item);
+			if (itemParent == item) {
+				return item;
+			}
+
+			int grandparent = parent.get(itemParent);
+			if (grandparent != itemParent) {
+				parent.compareAndSet(item, itemParent, grandparent);
+			}
+			item = itemParent;
+		}
+	}
+
+	/**
+	 * A fixed pseudo-random priority for each item. This is the finalizer from MurmurHash3, which is a bijection on
+	 * ints, so no two items ever have the same priority.
+	 */
+	private static int priority(int item) {
+		int h = item;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	private void checkExists(int item1, int item2) {
+		boolean item1Exists = contains(item1);
+		boolean item2Exists = contains(item2);
+
+		if (!item1Exists && !item2Exists) {
+			throw new IllegalStateException(item1 + " and " + item2 + " don't exist in the collection.");
+		}
+		if (!item1Exists) {
+			throw new IllegalStateException(item1 + " doesn't exist in the collection.");
+		}
+		if (!item2Exists) {
+			throw new IllegalStateException(item2 + " doesn't exist in the collection.");
+		}
+	}
+
+	private static void checkNotNull(Integer item1, Integer item2) {
+		if (item1 == null || item2 == null) {
+			throw new IllegalStateException("null doesn't exist in the collection.");
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package name.brian_gordon.collections.sets;
+
+import java.util.Arrays;
+
+/**
+ * The same forest of trees as UnionFindSetOfSets, for items which are small non-negative ints. Item i's parent and
+ * tree size live at index i of two int arrays, so there's no node object, map entry or Optional per item: eight bytes
+ * per item in total, and nothing is allocated by any operation except add() when the arrays have to grow. This suits
+ * dense ID spaces, since every ID below the highest one added costs its eight bytes whether it's used or not.
+ *
+ * Unions attach the smaller tree to the larger one, and finds use path halving: every node on the way up is pointed at
+ * its grandparent, which flattens the tree almost as well as full path compression, but in a single pass and without
+ * any recursion.
+ *
+ * The boxed SetOfSets methods are here for compatibility, but they box and unbox on every call, so use the int
+ * overloads wherever possible. This class is not thread-safe.
+ */
+public class IntUnionFindSetOfSets implements SetOfSets<Integer> {
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	// Some VMs reserve header words in an array. See java.util.ArrayList#MAX_ARRAY_SIZE.
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	// parent[i] == i for a root.
+	private int[] parent;
+
+	// For a root, the number of items in its tree. For an item which hasn't been added, 0. For any other item, a stale
+	// count which is never used again, but is still non-zero.
+	private int[] size;
+
+	public IntUnionFindSetOfSets() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param initialCapacity One more than the highest item expected. Adding a higher item grows the arrays.
+	 */
+	public IntUnionFindSetOfSets(int initialCapacity) {
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException("Initial capacity can't be negative.");
+		}
+
+		parent = new int[initialCapacity];
+		size = new int[initialCapacity];
+	}
+
+	/**
+	 * Factory method which places each of the items from 0 up to count-1 in its own independent set.
+	 */
+	public static IntUnionFindSetOfSets singletons(int count) {
+		var ret = new IntUnionFindSetOfSets(count);
+		for (int i = 0; i < count; i++) {
+			ret.parent[i] = i;
+			ret.size[i] = 1;
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Add a new set containing a single item.
+	 *
+	 * @throws IllegalArgumentException If the item is negative or too big to index an array.
+	 * @throws IllegalStateException If the item already exists in the collection.
+	 */
+	public void add(int item) {
+		if (item < 0 || item >= MAX_ARRAY_SIZE) {
+			throw new IllegalArgumentException("Items must be between 0 and " + (MAX_ARRAY_SIZE - 1) + ".");
+		}
+
+		ensureCapacity(item + 1);
+		if (size[item] != 0) {
+			throw new IllegalStateException("This collection already contains " + item);
+		}
+
+		parent[item] = item;
+		size[item] = 1;
+	}
+
+	/**
+	 * Join the set containing item1 and the set containing item2, so that they become a single set.
+	 *
+	 * @throws IllegalStateException If one or both of the given items don't exist in the collection.
+	 */
+	public void union(int item1, int item2) {
+		checkExists(item1, item2);
+		int item1Root = findRoot(item1);
+		int item2Root = findRoot(item2);
+
+		// If the two items are already in the same set, there's nothing to do.
+		if (item1Root == item2Root) {
+			return;
+		}
+
+		// Attach the root of the smaller tree to the root of the larger tree.
+		if (size[item1Root] >= size[item2Root]) {
+			parent[item2Root] = item1Root;
+			size[item1Root] += size[item2Root];
+		} else {
+			parent[item1Root] = item2Root;
+			size[item2Root] += size[item1Root];
+		}
+	}
+
+	/**
+	 * Check whether the set containing item1 is the same as the set containing item2.
+	 *
+	 * @throws IllegalStateException If one or both of the given items don't exist in the collection.
+	 */
+	public boolean isCommonSet(int item1, int item2) {
+		checkExists(item1, item2);
+		return findRoot(item1) == findRoot(item2);
+	}
+
+	/**
+	 * Find the item at the root of the tree containing the given item. Two items are in the same set exactly when they
+	 * have the same root.
+	 *
+	 * @throws IllegalStateException If the item doesn't exist in the collection.
+	 */
+	public int find(int item) {
+		if (!contains(item)) {
+			throw new IllegalStateException(item + " doesn't exist in the collection.");
+		}
+		return findRoot(item);
+	}
+
+	public boolean contains(int item) {
+		return item >= 0 && item < size.length && size[item] != 0;
+	}
+
+	/**
+	 * Grow the arrays, if necessary, so that items up to minCapacity-1 can be added without growing them again.
+	 */
+	public void ensureCapacity(int minCapacity) {
+		if (minCapacity <= parent.length) {
+			return;
+		}
+
+		// Double the capacity to keep adds amortized O(1), unless that would overshoot the largest possible array.
+		int newCapacity = (int)Math.min((long)parent.length * 2, MAX_ARRAY_SIZE);
+		newCapacity = Math.max(newCapacity, minCapacity);
+
+		parent = Arrays.copyOf(parent, newCapacity);
+		size = Arrays.copyOf(size, newCapacity);
+	}
+
+	@Override
+	public void add(Integer item) {
+		if (item == null) {
+			throw new IllegalArgumentException("Can't insert null.");
+		}
+
+		add(item.intValue());
+	}
+
+	@Override
+	public void union(Integer item1, Integer item2) {
+		checkNotNull(item1, item2);
+		union(item1.intValue(), item2.intValue());
+	}
+
+	@Override
+	public boolean isCommonSet(Integer item1, Integer item2) {
+		checkNotNull(item1, item2);
+		return isCommonSet(item1.intValue(), item2.intValue());
+	}
+
+	/**
+	 * Find the root of an item which is known to exist, halving the path on the way.
+	 */
+	private int findRoot(int item) {
+		while (parent[item] != item) {
+			parent[item] = parent[parent[item]];
+			item = parent[item];
+		}
+
+		return item;
+	}
+
+	private void checkExists(int item1, int item2) {
+		boolean item1Exists = contains(item1);
+		boolean item2Exists = contains(item2);
+
+		if (!item1Exists && !item2Exists) {
+			throw new IllegalStateException(item1 + " and " + item2 + " don't exist in the collection.");
+		}
+		if (!item1Exists) {
+			throw new IllegalStateException(item1 + " doesn't exist in the collection.");
+		}
+		if (!item2Exists) {
+			throw new IllegalStateException(item2 + " doesn't exist in the collection.");
+		}
+	}
+
+	private static void checkNotNull(Integer item1, Integer item2) {
+		if (item1 == null || item2 == null) {
+			throw new IllegalStateException("null doesn't exist in the collection.");
+		}
+	}
+}
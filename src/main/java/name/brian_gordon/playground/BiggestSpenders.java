@@ -1,5 +1,7 @@
 package name.brian_gordon.playground;
 
+import name.brian_gordon.collections.queues.HeapPriorityQueue;
+
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -23,27 +25,19 @@ public class BiggestSpenders {
 				)
 		);
 
-		// Get the top n spenders using a heap. We're sorting by spending ascending, then by user ID descending - the
-		// inverse of what we really want - because PriorityQueue keeps the *smallest* element at the head.
+		// Get the top n spenders using a top-k heap. We're sorting by spending ascending, then by user ID descending -
+		// the inverse of what we really want - because the heap keeps the *smallest* element at the root. Once the heap
+		// is full, a bigger spender replaces the root in place.
 		Comparator<Map.Entry<Long, BigDecimal>> userSpendingComparator =
 				Map.Entry.<Long, BigDecimal>comparingByValue().thenComparing(
 						Map.Entry.<Long, BigDecimal>comparingByKey().reversed()
 				);
-		PriorityQueue<Map.Entry<Long, BigDecimal>> heap = new PriorityQueue<>(n, userSpendingComparator);
-		spendingByUser.entrySet().forEach(entry -> {
-			if (heap.size() < n) {
-				heap.offer(entry);
-			} else if (userSpendingComparator.compare(entry, heap.peek()) > 0) {
-				heap.poll();
-				heap.offer(entry);
-			}
-		});
+		HeapPriorityQueue<Map.Entry<Long, BigDecimal>> heap = HeapPriorityQueue.topK(userSpendingComparator, n);
+		spendingByUser.entrySet().forEach(heap::add);
 
 		// Remove all elements from the heap and reverse the order.
 		List<Long> bigSpenders = new ArrayList<>(heap.size());
-		while (!heap.isEmpty()) {
-			bigSpenders.add(heap.poll().getKey());
-		}
+		heap.drainTo(entry -> bigSpenders.add(entry.getKey()), heap.size());
 		Collections.reverse(bigSpenders);
 		return bigSpenders;
 	}
@@ -0,0 +1,289 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests specific to AsyncQueue.
+ *
+ * @author Brian Gordon
+ */
+public class AsyncQueueTest {
+    @Test
+    public void testRemoveAsyncWaitsForAdd() throws Exception {
+        AsyncQueue<Integer> queue = new AsyncQueue<>();
+        CompletableFuture<Integer> first = queue.removeAsync();
+        CompletableFuture<Integer> second = queue.removeAsync();
+        Assert.assertFalse(first.isDone());
+
+        queue.add(1);
+        queue.add(2);
+        queue.add(3);
+        Assert.assertEquals(1, (int)first.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals(2, (int)second.get(1, TimeUnit.SECONDS));
+
+        // The third element had no waiter, so it should have gone into the queue.
+        Assert.assertEquals(3, (int)queue.removeAsync().getNow(null));
+        Assert.assertNull(queue.remove());
+    }
+
+    @Test
+    public void testCancelledWaiterIsSkipped() throws Exception {
+        AsyncQueue<Integer> queue = new AsyncQueue<>();
+        CompletableFuture<Integer> cancelled = queue.removeAsync();
+        CompletableFuture<Integer> waiting = queue.removeAsync();
+        cancelled.cancel(false);
+
+        queue.add(1);
+        Assert.assertEquals(1, (int)waiting.get(1, TimeUnit.SECONDS));
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * Waiters which time out or are cancelled shouldn't stay in the list of waiters on an idle queue.
+     */
+    @Test
+    public void testAbandonedWaitersAreRemoved() throws Exception {
+        AsyncQueue<Integer> queue = new AsyncQueue<>();
+        for(int i=0; i<1000; i++) {
+            queue.removeAsync().cancel(false);
+        }
+        CompletableFuture<Integer> timedOut = queue.removeAsync().orTimeout(1, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(timedOut.handle((item, failure) -> failure).get(10, TimeUnit.SECONDS)
+                instanceof TimeoutException);
+
+        // The stage above can run before the one which takes the waiter off the list, so give that one time to finish.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while(queue.waiterCount() != 0 && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        Assert.assertEquals(0, queue.waiterCount());
+
+        queue.add(1);
+        Assert.assertEquals(1, (int)queue.remove());
+    }
+
+    /**
+     * Deliver on the calling thread, so that every delivery has finished by the time add() or request() returns.
+     */
+    @Test
+    public void testPublisherRespectsDemand() {
+        AsyncQueue<Integer> queue = new AsyncQueue<>(new LockFreeLinkedQueue<>(), Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber(3);
+        queue.subscribe(subscriber);
+
+        for(int i=0; i<10; i++) {
+            queue.add(i);
+        }
+        Assert.assertEquals(List.of(0, 1, 2), subscriber.received);
+
+        subscriber.subscription.request(5);
+        Assert.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), subscriber.received);
+
+        // Requesting more than is available should deliver the rest, and then the next element as soon as it arrives.
+        subscriber.subscription.request(100);
+        queue.add(10);
+        Assert.assertEquals(11, subscriber.received.size());
+
+        subscriber.subscription.cancel();
+        queue.add(11);
+        Assert.assertEquals(11, subscriber.received.size());
+        Assert.assertEquals(11, (int)queue.remove());
+    }
+
+    /**
+     * A subscriber which cancels in the middle of a batch should still be given the rest of it, since those elements
+     * are already out of the queue.
+     */
+    @Test
+    public void testCancelDuringBatch() {
+        AsyncQueue<Integer> queue = new AsyncQueue<>(new LockFreeLinkedQueue<>(), Runnable::run);
+        queue.addAll(new Integer[] {0, 1, 2});
+        RecordingSubscriber subscriber = new RecordingSubscriber(3) {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                subscription.cancel();
+            }
+        };
+        queue.subscribe(subscriber);
+
+        Assert.assertEquals(List.of(0, 1, 2), subscriber.received);
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * If the wrapped queue fills up again while a cancelled subscriber is being given the rest of its batch, none of
+     * the batch should be lost, and the newer elements should stay in order behind it.
+     */
+    @Test
+    public void testCancelDuringBatchOnFullQueue() {
+        AsyncQueue<Integer> queue = new AsyncQueue<>(new LockFreeArrayQueue<>(2), Runnable::run);
+        queue.addAll(new Integer[] {0, 1});
+        RecordingSubscriber subscriber = new RecordingSubscriber(2) {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                if(item == 0) {
+                    subscription.cancel();
+                    queue.add(2);
+                    queue.add(3);
+                    Assert.assertFalse(queue.offer(4));
+                }
+            }
+        };
+        queue.subscribe(subscriber);
+
+        Assert.assertEquals(List.of(0, 1), subscriber.received);
+        Assert.assertEquals(2, (int)queue.remove());
+        Assert.assertEquals(3, (int)queue.remove());
+        Assert.assertNull(queue.remove());
+    }
+
+    @Test
+    public void testPublisherRejectsNonPositiveRequest() {
+        AsyncQueue<Integer> queue = new AsyncQueue<>(new LockFreeLinkedQueue<>(), Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        queue.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    /**
+     * A bad request() made while onNext() is running on another thread shouldn't call onError() until onNext() has
+     * returned.
+     */
+    @Test(timeout = 10_000)
+    public void testErrorWaitsForOnNext() throws InterruptedException {
+        AsyncQueue<Integer> queue =
+                new AsyncQueue<>(new LockFreeLinkedQueue<>(), command -> new Thread(command).start());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch errored = new CountDownLatch(1);
+        AtomicBoolean inOnNext = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+
+        RecordingSubscriber subscriber = new RecordingSubscriber(1) {
+            @Override
+            public void onNext(Integer item) {
+                inOnNext.set(true);
+                entered.countDown();
+                try {
+                    release.await();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inOnNext.set(false);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                overlapped.set(inOnNext.get());
+                super.onError(throwable);
+                errored.countDown();
+            }
+        };
+        queue.subscribe(subscriber);
+        queue.add(0);
+
+        entered.await();
+        subscriber.subscription.request(-1);
+        Assert.assertFalse(errored.await(50, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        errored.await();
+        Assert.assertFalse(overlapped.get());
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Feed a subscriber running on the common pool from another thread, and make sure everything arrives in order.
+     */
+    @Test
+    public void testPublisherAcrossThreads() throws InterruptedException {
+        AsyncQueue<Integer> queue = new AsyncQueue<>();
+        CountDownLatch done = new CountDownLatch(1000);
+        List<Integer> received = new ArrayList<>();
+
+        queue.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(16);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                received.add(item);
+                done.countDown();
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        Thread producer = new Thread(() -> {
+            for(int i=0; i<1000; i++) {
+                queue.add(i);
+            }
+        });
+        producer.start();
+
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        producer.join();
+        for(int i=0; i<1000; i++) {
+            Assert.assertEquals(i, (int)received.get(i));
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Integer> {
+        private final long initialRequest;
+        final List<Integer> received = new ArrayList<>();
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if(initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests specific to BlockingArrayQueue.
+ *
+ * @author Brian Gordon
+ */
+public class BlockingArrayQueueTest {
+    @Test
+    public void testBound() {
+        BlockingQueue<Integer> queue = new BlockingArrayQueue<>(2);
+        Assert.assertTrue(queue.offer(0));
+        Assert.assertTrue(queue.offer(1));
+        Assert.assertFalse(queue.offer(2));
+        Assert.assertEquals(0, (Number)queue.remove());
+        Assert.assertTrue(queue.offer(2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddWhenFull() {
+        BlockingQueue<Integer> queue = new BlockingArrayQueue<>(1);
+        queue.add(0);
+        queue.add(1);
+    }
+
+    @Test(timeout = 10_000)
+    public void testTimedPollExpires() throws InterruptedException {
+        BlockingQueue<Integer> queue = new BlockingArrayQueue<>();
+        long start = System.nanoTime();
+        Assert.assertNull(queue.poll(50, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test(timeout = 10_000)
+    public void testTimedOfferExpires() throws InterruptedException {
+        BlockingQueue<Integer> queue = new BlockingArrayQueue<>(1);
+        queue.put(0);
+        Assert.assertFalse(queue.offer(1, 50, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, (Number)queue.take());
+    }
+
+    @Test(timeout = 10_000)
+    public void testTakeWaitsForPut() throws InterruptedException {
+        BlockingQueue<Integer> queue = new BlockingArrayQueue<>();
+        AtomicReference<Integer> taken = new AtomicReference<>();
+
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+            } catch (InterruptedException e) {
+                // Leave taken unset so that the assertion below fails.
+            }
+        });
+        consumer.start();
+
+        queue.put(42);
+        consumer.join();
+        Assert.assertEquals(42, (Number)taken.get());
+    }
+
+    /**
+     * Push many elements through a queue with a tiny bound, so that the producer is constantly waiting for room.
+     */
+    @Test(timeout = 30_000)
+    public void testBackpressure() throws InterruptedException {
+        BlockingQueue<Integer> queue = new BlockingArrayQueue<>(2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            try {
+                for(int i=0; i<10_000; i++) {
+                    queue.put(i);
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        producer.start();
+
+        for(int i=0; i<10_000; i++) {
+            Assert.assertEquals(i, (Number)queue.take());
+        }
+        producer.join();
+        Assert.assertNull(failure.get());
+        Assert.assertNull(queue.remove());
+    }
+
+    @Test(timeout = 10_000)
+    public void testInterruptCancelsTake() throws InterruptedException {
+        BlockingQueue<Integer> queue = new BlockingArrayQueue<>();
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Thread consumer = new Thread(() -> {
+            try {
+                queue.take();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        consumer.start();
+        consumer.interrupt();
+
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertNull() {
+        new BlockingArrayQueue<Integer>().add(null);
+    }
+}
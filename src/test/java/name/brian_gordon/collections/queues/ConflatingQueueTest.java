@@ -0,0 +1,108 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests specific to ConflatingQueue.
+ *
+ * @author Brian Gordon
+ */
+public class ConflatingQueueTest {
+    /**
+     * A price update for a symbol. Updates for the same symbol conflate.
+     */
+    private static class Update {
+        final int symbol;
+        final int version;
+
+        Update(int symbol, int version) {
+            this.symbol = symbol;
+            this.version = version;
+        }
+    }
+
+    @Test
+    public void testReplacesInPlace() {
+        ConflatingQueue<String, String> queue = new ConflatingQueue<>(item -> item.substring(0, 1));
+        queue.add("a1");
+        queue.add("b1");
+        queue.add("c1");
+        queue.add("a2");
+        queue.add("b2");
+        Assert.assertEquals(3, queue.size());
+
+        Assert.assertEquals("a2", queue.remove());
+
+        // Now that a has been removed, a new value for it goes to the back.
+        queue.add("a3");
+        Assert.assertEquals("b2", queue.remove());
+        Assert.assertEquals("c1", queue.remove());
+        Assert.assertEquals("a3", queue.remove());
+        Assert.assertNull(queue.remove());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        new ConflatingQueue<String, String>(item -> null).add("a");
+    }
+
+    /**
+     * Producers stream ever-newer versions for a handful of symbols while a consumer falls behind. The consumer should
+     * never see a version older than one it already saw, should never hold more than one value per symbol, and should
+     * end up with the final version of every symbol.
+     */
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        final int symbols = 16;
+        final int versions = 20_000;
+        ConflatingQueue<Integer, Update> queue = new ConflatingQueue<>(update -> update.symbol);
+
+        // Each producer owns the symbols congruent to its number, so versions for a symbol are added in order.
+        List<Thread> producers = new ArrayList<>();
+        for(int p=0; p<4; p++) {
+            final int producer = p;
+            producers.add(new Thread(() -> {
+                for(int version=0; version<versions; version++) {
+                    for(int symbol=producer; symbol<symbols; symbol+=4) {
+                        queue.add(new Update(symbol, version));
+                    }
+                }
+            }));
+        }
+        for(Thread producer : producers) {
+            producer.start();
+        }
+
+        int[] latest = new int[symbols];
+        Arrays.fill(latest, -1);
+        boolean producing = true;
+        while(true) {
+            Update update = queue.remove();
+            if(update == null) {
+                if(!producing) {
+                    break;
+                }
+                producing = producers.stream().anyMatch(Thread::isAlive);
+                Thread.yield();
+                continue;
+            }
+
+            Assert.assertTrue(queue.size() <= symbols);
+            Assert.assertTrue(update.version > latest[update.symbol]);
+            latest[update.symbol] = update.version;
+        }
+
+        for(Thread producer : producers) {
+            producer.join();
+        }
+        for(int symbol=0; symbol<symbols; symbol++) {
+            Assert.assertEquals(versions - 1, latest[symbol]);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests specific to FairQueue. Elements are strings whose first character names their tenant.
+ *
+ * @author Brian Gordon
+ */
+public class FairQueueTest {
+    private static String tenantOf(String item) {
+        return item.substring(0, 1);
+    }
+
+    private static List<String> drain(Queue<String> queue) {
+        List<String> ret = new ArrayList<>();
+        queue.drainTo(ret::add, Integer.MAX_VALUE);
+        return ret;
+    }
+
+    /**
+     * A quiet tenant which arrives after a noisy one has flooded the queue should still get every other turn.
+     */
+    @Test
+    public void testNoisyTenantDoesNotStarveOthers() {
+        FairQueue<String, String> queue = new FairQueue<>(FairQueueTest::tenantOf);
+        for(int i=0; i<1000; i++) {
+            queue.add("n" + i);
+        }
+        queue.add("q0");
+        queue.add("q1");
+
+        Assert.assertEquals("n0", queue.remove());
+        Assert.assertEquals("q0", queue.remove());
+        Assert.assertEquals("n1", queue.remove());
+        Assert.assertEquals("q1", queue.remove());
+        Assert.assertEquals("n2", queue.remove());
+        Assert.assertEquals("n3", queue.remove());
+        Assert.assertEquals(996, queue.size());
+        Assert.assertEquals(0, queue.size("q"));
+    }
+
+    @Test
+    public void testWeights() {
+        FairQueue<String, String> queue = new FairQueue<>(FairQueueTest::tenantOf);
+        queue.setWeight("a", 3);
+        for(int i=0; i<5; i++) {
+            queue.add("a" + i);
+            queue.add("b" + i);
+        }
+
+        Assert.assertEquals(List.of("a0", "a1", "a2", "b0", "a3", "a4", "b1", "b2", "b3", "b4"), drain(queue));
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * A tenant which empties its sub-queue in the middle of its turn gives up the rest of the turn.
+     */
+    @Test
+    public void testIdleTenantForfeitsCredits() {
+        FairQueue<String, String> queue = new FairQueue<>(FairQueueTest::tenantOf, 3, Integer.MAX_VALUE);
+        queue.add("a0");
+        queue.add("b0");
+        Assert.assertEquals("a0", queue.remove());
+
+        queue.add("a1");
+        queue.add("a2");
+        Assert.assertEquals(List.of("b0", "a1", "a2"), drain(queue));
+    }
+
+    @Test
+    public void testTenantCapacity() {
+        FairQueue<String, String> queue = new FairQueue<>(FairQueueTest::tenantOf, 1, 2);
+        Assert.assertTrue(queue.offer("a0"));
+        Assert.assertTrue(queue.offer("a1"));
+        Assert.assertFalse(queue.offer("a2"));
+
+        // Other tenants are unaffected by a's cap.
+        Assert.assertTrue(queue.offer("b0"));
+
+        try {
+            queue.addAll(new String[] {"b1", "c0", "b2"});
+            Assert.fail("Expected IllegalStateException.");
+        } catch(IllegalStateException e) {
+            // Expected.
+        }
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(0, queue.size("c"));
+
+        Assert.assertEquals("a0", queue.remove());
+        Assert.assertTrue(queue.offer("a2"));
+        Assert.assertEquals(List.of("b0", "a1", "a2"), drain(queue));
+    }
+}
@@ -0,0 +1,120 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Tests for HeapPriorityQueue and LongKeyedPriorityQueue. These aren't FIFO, so they aren't covered by QueueTest.
+ *
+ * @author Brian Gordon
+ */
+public class HeapPriorityQueueTest {
+    /**
+     * Perform a random sequence of adds and removes, and compare against java.util.PriorityQueue, for several arities.
+     */
+    @Test
+    public void testRandom() {
+        for(int arity=2; arity<=8; arity++) {
+            Random random = new Random(arity);
+            HeapPriorityQueue<Integer> queue = new HeapPriorityQueue<>(Comparator.naturalOrder(), arity);
+            PriorityQueue<Integer> correctQueue = new PriorityQueue<>();
+
+            for(int i=0; i<5000; i++) {
+                if(random.nextInt(3) != 0) {
+                    int item = random.nextInt(1000);
+                    queue.add(item);
+                    correctQueue.add(item);
+                } else {
+                    Assert.assertEquals(correctQueue.peek(), queue.peek());
+                    Assert.assertEquals(correctQueue.poll(), queue.remove());
+                }
+                Assert.assertEquals(correctQueue.size(), queue.size());
+            }
+            while(!correctQueue.isEmpty()) {
+                Assert.assertEquals(correctQueue.poll(), queue.remove());
+            }
+            Assert.assertNull(queue.remove());
+        }
+    }
+
+    @Test
+    public void testHeapify() {
+        Random random = new Random(1);
+        Integer[] items = new Integer[1000];
+        for(int i=0; i<items.length; i++) {
+            items[i] = random.nextInt(100);
+        }
+
+        HeapPriorityQueue<Integer> queue = HeapPriorityQueue.of(Comparator.naturalOrder(), items);
+        PriorityQueue<Integer> correctQueue = new PriorityQueue<>(List.of(items));
+
+        // A small batch added to a big queue sifts each new element up instead of rebuilding the heap.
+        queue.addAll(new Integer[] {50, 5, 500});
+        correctQueue.addAll(List.of(50, 5, 500));
+
+        while(!correctQueue.isEmpty()) {
+            Assert.assertEquals(correctQueue.poll(), queue.remove());
+        }
+        Assert.assertNull(queue.remove());
+    }
+
+    @Test
+    public void testTopK() {
+        HeapPriorityQueue<Integer> queue = HeapPriorityQueue.topK(Comparator.naturalOrder(), 3);
+        for(int item : new int[] {5, 1, 9, 3, 7, 2, 8}) {
+            queue.add(item);
+        }
+
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(7, (int)queue.remove());
+        Assert.assertEquals(8, (int)queue.remove());
+        Assert.assertEquals(9, (int)queue.remove());
+        Assert.assertNull(queue.remove());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNull() {
+        new HeapPriorityQueue<String>(Comparator.naturalOrder()).add(null);
+    }
+
+    @Test
+    public void testLongKeyedRandom() {
+        Random random = new Random(1);
+        LongKeyedPriorityQueue<Long> queue = new LongKeyedPriorityQueue<>();
+        PriorityQueue<Long> correctQueue = new PriorityQueue<>();
+
+        for(int i=0; i<5000; i++) {
+            if(random.nextInt(3) != 0) {
+                long key = random.nextInt(1000) - 500;
+                queue.add(key, key);
+                correctQueue.add(key);
+            } else if(!correctQueue.isEmpty()) {
+                Assert.assertEquals((long)correctQueue.peek(), queue.peekKey());
+                Assert.assertEquals(correctQueue.poll(), queue.remove());
+            }
+        }
+        while(!correctQueue.isEmpty()) {
+            Assert.assertEquals(correctQueue.poll(), queue.remove());
+        }
+        Assert.assertNull(queue.remove());
+    }
+
+    @Test
+    public void testLongKeyedTopK() {
+        LongKeyedPriorityQueue<String> queue = LongKeyedPriorityQueue.topK(2);
+        queue.add(10, "ten");
+        queue.add(30, "thirty");
+        queue.add(20, "twenty");
+        queue.add(5, "five");
+
+        Assert.assertEquals(20, queue.peekKey());
+        Assert.assertEquals("twenty", queue.remove());
+        Assert.assertEquals("thirty", queue.remove());
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
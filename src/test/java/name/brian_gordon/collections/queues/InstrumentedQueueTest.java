@@ -0,0 +1,125 @@
+package name.brian_gordon.collections.queues;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Tests for InstrumentedQueue, QueueMetrics, and the metrics hooks in the individual queue implementations.
+ *
+ * @author Brian Gordon
+ */
+public class InstrumentedQueueTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCounts() {
+        QueueMetrics metrics = new QueueMetrics("test");
+        Queue<Integer> queue = new InstrumentedQueue<>(new ArrayQueue<>(), metrics, 1);
+
+        queue.add(1);
+        queue.add(2);
+        queue.addAll(new Integer[] {3, 4, 5});
+        Assert.assertEquals(5, metrics.enqueued());
+        Assert.assertEquals(5, metrics.depth());
+
+        Assert.assertEquals(1, (int)queue.remove());
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals(2, queue.drainTo(drained::add, 2));
+        Assert.assertEquals(List.of(2, 3), drained);
+
+        Integer[] target = new Integer[5];
+        Assert.assertEquals(2, queue.drainTo(target, 5));
+        Assert.assertEquals(4, (int)target[0]);
+        Assert.assertEquals(5, (int)target[1]);
+        Assert.assertNull(queue.remove());
+
+        Assert.assertEquals(5, metrics.dequeued());
+        Assert.assertEquals(0, metrics.depth());
+
+        // Only one element is timed at a time, so only the first one was.
+        Assert.assertEquals(1, metrics.latencySamples());
+
+        // The slot is free again, so the next element is timed too, even when it comes out through a batch drain.
+        queue.add(6);
+        queue.add(7);
+        Assert.assertEquals(2, queue.drainTo(target, 5));
+        Assert.assertEquals(2, metrics.latencySamples());
+        Assert.assertTrue(metrics.maxLatencyNanos() >= metrics.meanLatencyNanos());
+    }
+
+    /**
+     * Elements go into the wrapped queue as they are, so it can be a queue which compares them.
+     */
+    @Test
+    public void testTypedDelegate() {
+        QueueMetrics metrics = new QueueMetrics("test");
+        Queue<String> queue = new InstrumentedQueue<>(new HeapPriorityQueue<String>(Comparator.naturalOrder()), metrics, 1);
+
+        queue.add("b");
+        queue.add("c");
+        queue.add("a");
+        Assert.assertEquals("a", queue.remove());
+        Assert.assertEquals("b", queue.remove());
+        Assert.assertEquals("c", queue.remove());
+        Assert.assertNull(queue.remove());
+        Assert.assertEquals(1, metrics.latencySamples());
+    }
+
+    @Test
+    public void testResizeHooks() {
+        QueueMetrics metrics = new QueueMetrics("test");
+
+        ArrayQueue<Integer> arrayQueue = new ArrayQueue<>(2);
+        arrayQueue.setMetrics(metrics);
+        SynchronizedArrayQueue<Integer> synchronizedQueue = new SynchronizedArrayQueue<>(2);
+        synchronizedQueue.setMetrics(metrics);
+        BlockingArrayQueue<Integer> blockingQueue = new BlockingArrayQueue<>();
+        blockingQueue.setMetrics(metrics);
+
+        for(int i=0; i<20; i++) {
+            arrayQueue.add(i);
+            synchronizedQueue.add(i);
+            blockingQueue.add(i);
+        }
+
+        // ArrayQueue grows 2 -> 4 -> 8 -> 16 -> 32, SynchronizedArrayQueue grows 2 -> 6 -> 14 -> 30, and
+        // BlockingArrayQueue grows 10 -> 20.
+        Assert.assertEquals(4 + 3 + 1, metrics.resizes());
+    }
+
+    @Test
+    public void testResizeEventIsRecorded() throws IOException {
+        Path file = folder.newFile("recording.jfr").toPath();
+
+        try(Recording recording = new Recording()) {
+            recording.enable("name.brian_gordon.collections.QueueResize");
+            recording.start();
+
+            ArrayQueue<Integer> queue = new ArrayQueue<>(2);
+            queue.setMetrics(new QueueMetrics("recorded"));
+            queue.add(1);
+            queue.add(2);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals("recorded", events.get(0).getString("queueName"));
+        Assert.assertEquals(2, events.get(0).getInt("oldCapacity"));
+        Assert.assertEquals(4, events.get(0).getInt("newCapacity"));
+    }
+}
@@ -0,0 +1,106 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Single-threaded tests against the implementations of the IntQueue interface.
+ *
+ * @author Brian Gordon
+ */
+@RunWith(Parameterized.class)
+public class IntQueueTest {
+    private Supplier<IntQueue> queueFactory;
+
+    public IntQueueTest(Supplier<IntQueue> queueFactory) {
+        this.queueFactory = queueFactory;
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testEmpty() {
+        IntQueue queue = queueFactory.get();
+        Assert.assertTrue(queue.isEmpty());
+        queue.remove();
+    }
+
+    @Test
+    public void testRemoveOrElse() {
+        IntQueue queue = queueFactory.get();
+        Assert.assertEquals(-1, queue.removeOrElse(-1));
+        queue.add(0);
+        Assert.assertEquals(0, queue.removeOrElse(-1));
+        Assert.assertEquals(-1, queue.removeOrElse(-1));
+    }
+
+    @Test
+    public void testFixed() {
+        IntQueue queue = queueFactory.get();
+        queue.add(5);
+        queue.add(4);
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(5, queue.remove());
+        queue.addAll(new int[] {3, 2, 1});
+        Assert.assertEquals(4, queue.remove());
+
+        int[] out = new int[5];
+        Assert.assertEquals(3, queue.drainTo(out, 5));
+        Assert.assertArrayEquals(new int[] {3, 2, 1, 0, 0}, out);
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Apply randomized operations to the queues being tested and a known correct queue implementation, simultaneously.
+     * Then compare their outputs.
+     */
+    @Test
+    public void testRandom() {
+        Random random = new Random();
+
+        IntQueue myQueue = queueFactory.get();
+        java.util.Queue<Integer> correctQueue = new ArrayDeque<>();
+        int next = 0;
+        for(int i=0; i<1000; i++) {
+            switch(random.nextInt(4)) {
+                case 0:
+                    myQueue.add(next);
+                    correctQueue.add(next++);
+                    break;
+                case 1:
+                    Assert.assertEquals(correctQueue.isEmpty() ? -1 : correctQueue.poll(), myQueue.removeOrElse(-1));
+                    break;
+                case 2: {
+                    int[] batch = new int[random.nextInt(20)];
+                    for(int j=0; j<batch.length; j++) {
+                        batch[j] = next;
+                        correctQueue.add(next++);
+                    }
+                    myQueue.addAll(batch);
+                    break;
+                }
+                default: {
+                    int[] out = new int[20];
+                    int count = myQueue.drainTo(out, random.nextInt(out.length + 1));
+                    for(int j=0; j<count; j++) {
+                        Assert.assertEquals((int)correctQueue.poll(), out[j]);
+                    }
+                    break;
+                }
+            }
+            Assert.assertEquals(correctQueue.size(), myQueue.size());
+        }
+    }
+
+    @Parameterized.Parameters
+    public static List<Supplier<IntQueue>[]> factories() {
+        return List.of(
+                new Supplier[] {() -> new IntArrayQueue()},
+                new Supplier[] {() -> new IntArrayQueue(1)},
+                new Supplier[] {() -> new SynchronizedIntArrayQueue(3)}
+        );
+    }
+}
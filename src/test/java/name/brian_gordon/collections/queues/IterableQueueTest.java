@@ -0,0 +1,163 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for iterating, streaming and wrapping the IterableQueue implementations.
+ *
+ * @author Brian Gordon
+ */
+@RunWith(Parameterized.class)
+public class IterableQueueTest {
+    private final QueueFactory<Integer> queueFactory;
+
+    public IterableQueueTest(QueueFactory<Integer> queueFactory) {
+        this.queueFactory = queueFactory;
+    }
+
+    private IterableQueue<Integer> makeQueue() {
+        return (IterableQueue<Integer>)queueFactory.makeQueue();
+    }
+
+    /**
+     * Fill the queue with 0 through count-1, after cycling some elements through it first so that array-backed queues
+     * wrap around the end of their arrays.
+     */
+    private IterableQueue<Integer> makeQueue(int count) {
+        IterableQueue<Integer> queue = makeQueue();
+        for(int i=0; i<7; i++) {
+            queue.add(-1);
+        }
+        for(int i=0; i<7; i++) {
+            queue.remove();
+        }
+        for(int i=0; i<count; i++) {
+            queue.add(i);
+        }
+        return queue;
+    }
+
+    private static List<Integer> range(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEmpty() {
+        IterableQueue<Integer> queue = makeQueue();
+        Assert.assertEquals(0, queue.size());
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertFalse(queue.iterator().hasNext());
+        Assert.assertEquals(0, queue.stream().count());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorExhausted() {
+        IterableQueue<Integer> queue = makeQueue(1);
+        Iterator<Integer> iterator = queue.iterator();
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test
+    public void testIterationOrder() {
+        IterableQueue<Integer> queue = makeQueue(10);
+        Assert.assertEquals(10, queue.size());
+
+        List<Integer> seen = new ArrayList<>();
+        for(Integer item : queue) {
+            seen.add(item);
+        }
+        Assert.assertEquals(range(10), seen);
+
+        // Iterating doesn't remove anything.
+        Assert.assertEquals(0, (Number)queue.remove());
+        Assert.assertEquals(9, queue.size());
+    }
+
+    @Test
+    public void testParallelStream() {
+        IterableQueue<Integer> queue = makeQueue(10_000);
+        Assert.assertEquals(range(10_000), queue.parallelStream().collect(Collectors.toList()));
+        Assert.assertEquals(49_995_000L, queue.parallelStream().mapToLong(Integer::longValue).sum());
+    }
+
+    /**
+     * Split the spliterator all the way down and make sure that the pieces cover every element exactly once, in order.
+     */
+    @Test
+    public void testSplitting() {
+        IterableQueue<Integer> queue = makeQueue(100);
+        Spliterator<Integer> spliterator = queue.spliterator();
+        boolean sized = spliterator.hasCharacteristics(Spliterator.SUBSIZED);
+
+        List<Integer> seen = new ArrayList<>();
+        split(spliterator, seen, sized);
+        Assert.assertEquals(range(100), seen);
+    }
+
+    private static void split(Spliterator<Integer> spliterator, List<Integer> seen, boolean sized) {
+        long size = spliterator.estimateSize();
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        if(prefix == null) {
+            spliterator.forEachRemaining(seen::add);
+            return;
+        }
+
+        if(sized) {
+            Assert.assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+        }
+        split(prefix, seen, sized);
+        split(spliterator, seen, sized);
+    }
+
+    @Test
+    public void testJavaQueueView() {
+        IterableQueue<Integer> queue = makeQueue(3);
+        java.util.Queue<Integer> view = queue.asJavaQueue();
+
+        Assert.assertEquals(3, view.size());
+        Assert.assertEquals(0, (Number)view.peek());
+        Assert.assertEquals(0, (Number)view.poll());
+        Assert.assertTrue(view.offer(3));
+        Assert.assertTrue(view.addAll(Arrays.asList(4, 5)));
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5), new ArrayList<>(view));
+        Assert.assertTrue(view.contains(4));
+
+        Assert.assertEquals(1, (Number)queue.remove());
+        Assert.assertEquals(4, view.size());
+
+        view.clear();
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(view.peek());
+        Assert.assertNull(view.poll());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testJavaQueueViewRejectsNull() {
+        makeQueue().asJavaQueue().offer(null);
+    }
+
+    @Parameterized.Parameters
+    public static List<QueueFactory<Integer>[]> factories() {
+        return List.of(
+                new QueueFactory[] {() -> new ArrayQueue<Integer>()},
+                new QueueFactory[] {() -> new LinkedQueue<Integer>()},
+                new QueueFactory[] {() -> new LinkedQueue<Integer>(4)},
+                new QueueFactory[] {() -> new SynchronizedArrayQueue<Integer>(10)},
+                new QueueFactory[] {() -> new LockFreeLinkedQueue<Integer>()},
+                new QueueFactory[] {() -> new SnapshotQueue<Integer>()}
+        );
+    }
+}
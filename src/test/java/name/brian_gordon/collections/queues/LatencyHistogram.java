@@ -0,0 +1,116 @@
+package name.brian_gordon.collections.queues;
+
+import java.io.PrintStream;
+
+/**
+ * A histogram of latencies with log-linear buckets, in the style of HdrHistogram. Values below 2^SUB_BUCKET_BITS each
+ * get their own bucket. Above that, every power-of-two range is split into 2^(SUB_BUCKET_BITS - 1) equal buckets, so
+ * a recorded value is off by at most 1/64 of itself no matter how big it is, and the whole range of a long fits in a
+ * few thousand counters. It's not thread-safe: give each recording thread its own histogram and add() them together
+ * afterwards.
+ *
+ * @author Brian Gordon
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    // The biggest shift is for values with their highest bit at position 62.
+    private static final int BUCKET_COUNT = (62 - SUB_BUCKET_BITS + 2) * HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long max = 0;
+    private double sum = 0;
+
+    /**
+     * Record a non-negative value. Negative values, which can come from clock skew between threads, are clamped to 0.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts[bucketFor(value)]++;
+        totalCount++;
+        max = Math.max(max, value);
+        sum += value;
+    }
+
+    /**
+     * Add all of the values recorded in another histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        for(int i=0; i<BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+
+    public long count() {
+        return totalCount;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * The smallest value which at least the given percentage of recorded values are less than or equal to, rounded up
+     * to the top of its bucket. Returns 0 if nothing has been recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+        if(totalCount == 0) {
+            return 0;
+        }
+
+        long countAtPercentile = Math.max((long)Math.ceil(percentile / 100 * totalCount), 1);
+        long seen = 0;
+        for(int i=0; i<BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if(seen >= countAtPercentile) {
+                return Math.min(highestValueInBucket(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Print the usual percentiles, scaled down by the given factor (e.g. 1000 to print nanoseconds as microseconds).
+     */
+    public void printPercentiles(PrintStream out, String label, double scale) {
+        out.printf("%s (%d values)%n", label, totalCount);
+        for(double percentile : REPORTED_PERCENTILES) {
+            out.printf("  %7s%%  %12.2f%n", percentile, valueAtPercentile(percentile) / scale);
+        }
+        out.printf("  %8s  %12.2f%n", "max", max / scale);
+    }
+
+    static int bucketFor(long value) {
+        if(value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+
+        // Keep the SUB_BUCKET_BITS most significant bits of the value. The top one is always set, so each shift gets
+        // half as many buckets as there are values below SUB_BUCKET_COUNT.
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int mantissa = (int)(value >>> shift);
+        return shift * HALF_SUB_BUCKET_COUNT + mantissa;
+    }
+
+    static long highestValueInBucket(int bucket) {
+        if(bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        int shift = bucket / HALF_SUB_BUCKET_COUNT - 1;
+        long mantissa = bucket - shift * HALF_SUB_BUCKET_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,59 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests for LatencyHistogram and a quick run of QueueLoadGenerator.
+ *
+ * @author Brian Gordon
+ */
+public class LatencyHistogramTest {
+    /**
+     * Every value should land in a bucket whose top is no smaller than the value and less than 1/64 bigger.
+     */
+    @Test
+    public void testBucketPrecision() {
+        Random random = new Random(1);
+        for(int i=0; i<100_000; i++) {
+            long value = random.nextLong() & (Long.MAX_VALUE >>> random.nextInt(64));
+            long top = LatencyHistogram.highestValueInBucket(LatencyHistogram.bucketFor(value));
+            Assert.assertTrue(top >= value);
+            Assert.assertTrue(top - value <= value / 64);
+        }
+
+        for(long value=0; value<10_000; value++) {
+            int bucket = LatencyHistogram.bucketFor(value);
+            Assert.assertTrue(LatencyHistogram.highestValueInBucket(bucket) >= value);
+            Assert.assertTrue(bucket == 0 || LatencyHistogram.highestValueInBucket(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.valueAtPercentile(99));
+
+        for(long value=1; value<=100; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(1_000_000);
+        histogram.add(other);
+
+        Assert.assertEquals(101, histogram.count());
+        Assert.assertEquals(51, histogram.valueAtPercentile(50));
+        Assert.assertEquals(100, histogram.valueAtPercentile(99));
+        Assert.assertEquals(1_000_000, histogram.valueAtPercentile(100));
+        Assert.assertEquals(1_000_000, histogram.max());
+    }
+
+    @Test
+    public void testLoadGenerator() throws InterruptedException {
+        QueueLoadGenerator generator = new QueueLoadGenerator(2, 1, 20_000, 100_000_000);
+        LatencyHistogram histogram = generator.run(LockFreeLinkedQueue::new);
+        Assert.assertEquals(2000, histogram.count());
+    }
+}
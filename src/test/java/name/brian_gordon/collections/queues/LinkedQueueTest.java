@@ -0,0 +1,80 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Tests specific to LinkedQueue.
+ *
+ * @author Brian Gordon
+ */
+public class LinkedQueueTest {
+    private static final Object ELEMENT = new Object();
+
+    /**
+     * Add and remove in bursts of up to burst elements, so that the queue's size stays within that bound.
+     *
+     * @return The number of bytes the current thread allocated while doing so
+     */
+    private static long allocatedDuringBursts(Queue<Object> queue, int burst, int rounds) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)bean;
+        long threadId = Thread.currentThread().getId();
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for(int round=0; round<rounds; round++) {
+            for(int i=0; i<burst; i++) {
+                queue.add(ELEMENT);
+            }
+            for(int i=0; i<burst; i++) {
+                queue.remove();
+            }
+        }
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    @Test
+    public void testPooledQueueDoesNotAllocate() {
+        LinkedQueue<Object> queue = new LinkedQueue<>(64);
+
+        // Warm up the pool and the JIT.
+        allocatedDuringBursts(queue, 64, 10_000);
+
+        long allocated = allocatedDuringBursts(queue, 64, 10_000);
+        Assert.assertTrue("Allocated " + allocated + " bytes", allocated < 10_000);
+    }
+
+    /**
+     * Make sure that the measurement can see node allocations at all, so that the test above means something.
+     */
+    @Test
+    public void testUnpooledQueueAllocates() {
+        LinkedQueue<Object> queue = new LinkedQueue<>();
+        allocatedDuringBursts(queue, 64, 10_000);
+
+        long allocated = allocatedDuringBursts(queue, 64, 10_000);
+        Assert.assertTrue("Allocated " + allocated + " bytes", allocated > 640_000);
+    }
+
+    /**
+     * Bursts bigger than the pool still work, and only the overflow is allocated.
+     */
+    @Test
+    public void testBurstBiggerThanPool() {
+        LinkedQueue<Integer> queue = new LinkedQueue<>(4);
+        for(int round=0; round<3; round++) {
+            for(int i=0; i<10; i++) {
+                queue.add(i);
+            }
+            Assert.assertEquals(10, queue.size());
+            for(int i=0; i<10; i++) {
+                Assert.assertEquals(i, (int)queue.remove());
+            }
+            Assert.assertNull(queue.remove());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests specific to LockFreeArrayQueue.
+ *
+ * @author Brian Gordon
+ */
+public class LockFreeArrayQueueTest {
+    @Test
+    public void testCapacityRoundsUpToPowerOfTwo() {
+        Assert.assertEquals(1, new LockFreeArrayQueue<Integer>(1).capacity());
+        Assert.assertEquals(4, new LockFreeArrayQueue<Integer>(3).capacity());
+        Assert.assertEquals(8, new LockFreeArrayQueue<Integer>(8).capacity());
+    }
+
+    @Test
+    public void testFull() {
+        Queue<Integer> queue = new LockFreeArrayQueue<>(4);
+        for(int i=0; i<4; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        Assert.assertFalse(queue.offer(4));
+
+        Assert.assertEquals(0, (Number)queue.remove());
+        Assert.assertTrue(queue.offer(4));
+        Assert.assertFalse(queue.offer(5));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddWhenFull() {
+        Queue<Integer> queue = new LockFreeArrayQueue<>(2);
+        queue.add(0);
+        queue.add(1);
+        queue.add(2);
+    }
+
+    /**
+     * Cycle through the ring many times to make sure that the slot sequence numbers are handed off correctly from lap
+     * to lap.
+     */
+    @Test
+    public void testManyLaps() {
+        Queue<Integer> queue = new LockFreeArrayQueue<>(4);
+        int next = 0;
+        for(int i=0; i<1000; i++) {
+            queue.add(i);
+            if(i % 2 == 1) {
+                Assert.assertEquals(next++, (Number)queue.remove());
+                Assert.assertEquals(next++, (Number)queue.remove());
+            }
+        }
+    }
+
+    /**
+     * Several producers add batches while several consumers drain batches. Every element must come out exactly once.
+     */
+    @Test(timeout = 30_000)
+    public void testConcurrentBatches() throws InterruptedException {
+        final int threads = 3;
+        final int batchesPerProducer = 2000;
+        final int batchSize = 4;
+        final int total = threads * batchesPerProducer * batchSize;
+
+        Queue<Integer> queue = new LockFreeArrayQueue<>(16);
+        AtomicInteger removed = new AtomicInteger();
+        List<List<Integer>> outs = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for(int p=0; p<threads; p++) {
+            final int producer = p;
+            workers.add(new Thread(() -> {
+                for(int b=0; b<batchesPerProducer; b++) {
+                    Integer[] batch = new Integer[batchSize];
+                    for(int i=0; i<batchSize; i++) {
+                        batch[i] = (producer * batchesPerProducer + b) * batchSize + i;
+                    }
+                    while(true) {
+                        try {
+                            queue.addAll(batch);
+                            break;
+                        } catch (IllegalStateException e) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            }));
+        }
+        for(int c=0; c<threads; c++) {
+            List<Integer> out = new ArrayList<>();
+            outs.add(out);
+            workers.add(new Thread(() -> {
+                Integer[] buffer = new Integer[5];
+                while(removed.get() < total) {
+                    int count = queue.drainTo(buffer, buffer.length);
+                    for(int i=0; i<count; i++) {
+                        out.add(buffer[i]);
+                    }
+                    removed.addAndGet(count);
+                    if(count == 0) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        for(Thread worker : workers) {
+            worker.start();
+        }
+        for(Thread worker : workers) {
+            worker.join();
+        }
+
+        BitSet seen = new BitSet(total);
+        for(List<Integer> out : outs) {
+            for(Integer item : out) {
+                Assert.assertFalse(seen.get(item));
+                seen.set(item);
+            }
+        }
+        Assert.assertEquals(total, seen.cardinality());
+    }
+
+    @Test(timeout = 10_000, expected = IllegalArgumentException.class)
+    public void testDrainNegative() {
+        Queue<Integer> queue = new LockFreeArrayQueue<>(4);
+        queue.add(1);
+        queue.drainTo(item -> {}, -1);
+    }
+
+    /**
+     * A consumer which throws keeps the element it threw on, and everything after it stays in the queue.
+     */
+    @Test
+    public void testDrainConsumerThrows() {
+        Queue<Integer> queue = new LockFreeArrayQueue<>(8);
+        queue.addAll(new Integer[] {1, 2, 3, 4});
+        try {
+            queue.drainTo(item -> {
+                if(item == 2) {
+                    throw new IllegalStateException();
+                }
+            }, 4);
+            Assert.fail();
+        } catch(IllegalStateException e) {
+            // Expected.
+        }
+
+        Assert.assertEquals(3, (Number)queue.remove());
+        Assert.assertEquals(4, (Number)queue.remove());
+        Assert.assertNull(queue.remove());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertNull() {
+        new LockFreeArrayQueue<Integer>().add(null);
+    }
+}
@@ -0,0 +1,85 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests against the implementations of the LongQueue interface.
+ *
+ * @author Brian Gordon
+ */
+public class LongQueueTest {
+    @Test
+    public void testValuesBeyondIntRange() {
+        LongQueue queue = new LongArrayQueue(2);
+        queue.add(Long.MAX_VALUE);
+        queue.addAll(new long[] {Long.MIN_VALUE, 1L << 40});
+        Assert.assertEquals(Long.MAX_VALUE, queue.remove());
+        Assert.assertEquals(Long.MIN_VALUE, queue.remove());
+        Assert.assertEquals(1L << 40, queue.removeOrElse(-1));
+        Assert.assertEquals(-1, queue.removeOrElse(-1));
+    }
+
+    /**
+     * Several producers and consumers share a SynchronizedLongArrayQueue. Every value must come out exactly once, and
+     * values from the same producer must come out in order.
+     */
+    @Test(timeout = 30_000)
+    public void testSynchronizedMultithreaded() throws InterruptedException {
+        final int threads = 4;
+        final int perProducer = 10_000;
+
+        LongQueue queue = new SynchronizedLongArrayQueue();
+        List<Thread> workers = new ArrayList<>();
+        long[][] lastSeen = new long[threads][threads];
+        long[] sums = new long[threads];
+        int[] counts = new int[threads];
+
+        for(int p=0; p<threads; p++) {
+            final long producer = p;
+            workers.add(new Thread(() -> {
+                for(long i=0; i<perProducer; i++) {
+                    // The low bits identify the producer, and the high bits are an increasing counter.
+                    queue.add(i * threads + producer);
+                }
+            }));
+        }
+        for(int c=0; c<threads; c++) {
+            final int consumer = c;
+            Arrays.fill(lastSeen[consumer], -1);
+            workers.add(new Thread(() -> {
+                while(counts[consumer] < perProducer) {
+                    long value = queue.removeOrElse(-1);
+                    if(value == -1) {
+                        Thread.yield();
+                        continue;
+                    }
+                    int producer = (int)(value % threads);
+                    Assert.assertTrue(value > lastSeen[consumer][producer]);
+                    lastSeen[consumer][producer] = value;
+                    sums[consumer] += value;
+                    counts[consumer]++;
+                }
+            }));
+        }
+
+        for(Thread worker : workers) {
+            worker.start();
+        }
+        for(Thread worker : workers) {
+            worker.join();
+        }
+
+        long total = 0;
+        for(long sum : sums) {
+            total += sum;
+        }
+        long n = (long)threads * perProducer;
+        Assert.assertEquals(n * (n - 1) / 2, total);
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
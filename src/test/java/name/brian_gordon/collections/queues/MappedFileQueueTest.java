@@ -0,0 +1,156 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Tests specific to MappedFileQueue.
+ *
+ * @author Brian Gordon
+ */
+public class MappedFileQueueTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFifo() throws IOException {
+        try(MappedFileQueue<String> queue = new MappedFileQueue<>(folder.getRoot().toPath(), Codec.UTF_8)) {
+            Assert.assertNull(queue.remove());
+            queue.add("hello");
+            queue.add("");
+            queue.add("\u00e9\u4e16\uD83D\uDE00");
+            Assert.assertEquals("hello", queue.remove());
+            Assert.assertEquals("", queue.remove());
+            Assert.assertEquals("\u00e9\u4e16\uD83D\uDE00", queue.remove());
+            Assert.assertNull(queue.remove());
+        }
+    }
+
+    /**
+     * Close the queue partway through and reopen it. The new instance should resume exactly where the old one stopped.
+     */
+    @Test
+    public void testResumeAfterReopen() throws IOException {
+        Path directory = folder.getRoot().toPath();
+
+        try(MappedFileQueue<Long> queue = new MappedFileQueue<>(directory, Codec.LONGS, 64)) {
+            for(long i=0; i<20; i++) {
+                queue.add(i);
+            }
+            for(long i=0; i<7; i++) {
+                Assert.assertEquals(i, (long)queue.remove());
+            }
+        }
+
+        try(MappedFileQueue<Long> queue = new MappedFileQueue<>(directory, Codec.LONGS, 64)) {
+            queue.add(20L);
+            for(long i=7; i<=20; i++) {
+                Assert.assertEquals(i, (long)queue.remove());
+            }
+            Assert.assertNull(queue.remove());
+        }
+    }
+
+    /**
+     * Use tiny segments so that the queue has to roll over to new files constantly, and compare it against a known
+     * correct queue implementation.
+     */
+    @Test
+    public void testRollingSegments() throws IOException {
+        Random random = new Random(1);
+        Path directory = folder.getRoot().toPath();
+
+        try(MappedFileQueue<String> queue = new MappedFileQueue<>(directory, Codec.UTF_8, 48)) {
+            java.util.Queue<String> correctQueue = new ArrayDeque<>();
+            for(int i=0; i<2000; i++) {
+                if(random.nextInt(3) != 0) {
+                    String item = "x".repeat(random.nextInt(20)) + i;
+                    queue.add(item);
+                    correctQueue.add(item);
+                } else {
+                    Assert.assertEquals(correctQueue.poll(), queue.remove());
+                }
+            }
+            while(!correctQueue.isEmpty()) {
+                Assert.assertEquals(correctQueue.poll(), queue.remove());
+            }
+            Assert.assertNull(queue.remove());
+
+            // Every segment the reader has finished with should have been deleted.
+            try(Stream<Path> files = Files.list(directory)) {
+                Assert.assertTrue(files.filter(path -> path.toString().endsWith(".segment")).count() <= 1);
+            }
+        }
+    }
+
+    /**
+     * A batch drain saves the read cursor once at the end, so a reopened queue should resume after the whole batch.
+     */
+    @Test
+    public void testDrainAcrossSegments() throws IOException {
+        Path directory = folder.getRoot().toPath();
+
+        try(MappedFileQueue<Long> queue = new MappedFileQueue<>(directory, Codec.LONGS, 64)) {
+            for(long i=0; i<20; i++) {
+                queue.add(i);
+            }
+
+            List<Long> drained = new ArrayList<>();
+            Assert.assertEquals(13, queue.drainTo(drained::add, 13));
+            for(int i=0; i<13; i++) {
+                Assert.assertEquals(i, (long)drained.get(i));
+            }
+        }
+
+        try(MappedFileQueue<Long> queue = new MappedFileQueue<>(directory, Codec.LONGS, 64)) {
+            List<Long> drained = new ArrayList<>();
+            Assert.assertEquals(7, queue.drainTo(drained::add, 100));
+            Assert.assertEquals(13, (long)drained.get(0));
+            Assert.assertNull(queue.remove());
+        }
+    }
+
+    /**
+     * The UTF-8 codec should produce exactly the bytes that String.getBytes() does, which also replaces unpaired
+     * surrogates with '?', and exactly as many as it says it will.
+     */
+    @Test
+    public void testUtf8MatchesJdk() {
+        Random random = new Random(1);
+        char[] alphabet = {'a', '\u007f', '\u0080', '\u07ff', '\u0800', '\u4e16', '\uffff', '\uD83D', '\uDE00'};
+        for(int i=0; i<1000; i++) {
+            StringBuilder builder = new StringBuilder();
+            for(int j=random.nextInt(10); j>0; j--) {
+                builder.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String item = builder.toString();
+
+            byte[] expected = item.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(expected.length, Codec.UTF_8.encodedLength(item));
+
+            ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+            Codec.UTF_8.encode(item, buffer);
+            Assert.assertArrayEquals(expected, buffer.array());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testElementTooLarge() throws IOException {
+        try(MappedFileQueue<String> queue = new MappedFileQueue<>(folder.getRoot().toPath(), Codec.UTF_8, 16)) {
+            queue.add("123456789");
+        }
+    }
+}
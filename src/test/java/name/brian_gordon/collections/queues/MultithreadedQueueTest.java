@@ -225,7 +225,15 @@ public class MultithreadedQueueTest {
     public static List<QueueFactory<Integer>[]> factories() {
         return List.of(
                 new QueueFactory[] {() -> new SynchronizedArrayQueue<Integer>(3)},
-                new QueueFactory[] {() -> new SynchronizedArrayQueue<Integer>(10)}
+                new QueueFactory[] {() -> new SynchronizedArrayQueue<Integer>(10)},
+                new QueueFactory[] {() -> new LockFreeArrayQueue<Integer>(ACTIONS_PER_ACTOR * NUMBER_OF_ACTORS)},
+                new QueueFactory[] {() -> new BlockingArrayQueue<Integer>()},
+                new QueueFactory[] {() -> new LockFreeLinkedQueue<Integer>()},
+                new QueueFactory[] {() -> new StripedQueue<Integer>(4)},
+                new QueueFactory[] {() -> new AsyncQueue<Integer>()},
+                new QueueFactory[] {() -> new InstrumentedQueue<Integer>(new LockFreeLinkedQueue<>(), new QueueMetrics("test"), 4)},
+                new QueueFactory[] {() -> new FairQueue<Integer, Integer>(item -> item % NUMBER_OF_ACTORS)},
+                new QueueFactory[] {() -> new SnapshotQueue<Integer>()}
         );
     }
 }
@@ -0,0 +1,97 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Tests for PersistentQueue and SnapshotQueue.
+ *
+ * @author Brian Gordon
+ */
+public class PersistentQueueTest {
+    @Test
+    public void testOldVersionsDoNotChange() {
+        PersistentQueue<Integer> empty = PersistentQueue.empty();
+        PersistentQueue<Integer> one = empty.add(1);
+        PersistentQueue<Integer> two = one.add(2);
+        PersistentQueue<Integer> three = two.add(3);
+        PersistentQueue<Integer> removed = three.remove();
+
+        Assert.assertEquals("[]", empty.toString());
+        Assert.assertEquals("[1]", one.toString());
+        Assert.assertEquals("[1, 2]", two.toString());
+        Assert.assertEquals("[1, 2, 3]", three.toString());
+        Assert.assertEquals("[2, 3]", removed.toString());
+        Assert.assertEquals(1, (int)three.peek());
+        Assert.assertEquals(2, (int)removed.peek());
+        Assert.assertNull(empty.peek());
+        Assert.assertTrue(empty.isEmpty());
+
+        // Branch off an old version.
+        Assert.assertEquals("[1, 2, 4]", two.add(4).toString());
+        Assert.assertEquals("[1, 2, 3]", three.toString());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testRemoveFromEmpty() {
+        PersistentQueue.empty().remove();
+    }
+
+    /**
+     * Keep every version around, and make random changes to randomly chosen old versions. Each one should always
+     * match the ArrayDeque that was built up the same way.
+     */
+    @Test
+    public void testRandomVersions() {
+        Random random = new Random(1);
+        List<PersistentQueue<Integer>> versions = new ArrayList<>();
+        List<ArrayDeque<Integer>> expected = new ArrayList<>();
+        versions.add(PersistentQueue.empty());
+        expected.add(new ArrayDeque<>());
+
+        for(int i=0; i<3000; i++) {
+            int base = random.nextInt(10) == 0 ? random.nextInt(versions.size()) : versions.size() - 1;
+            PersistentQueue<Integer> version = versions.get(base);
+            ArrayDeque<Integer> correct = new ArrayDeque<>(expected.get(base));
+
+            if(random.nextInt(3) != 0 || version.isEmpty()) {
+                version = version.add(i);
+                correct.add(i);
+            } else {
+                Assert.assertEquals(correct.poll(), version.peek());
+                version = version.remove();
+            }
+
+            Assert.assertEquals(correct.size(), version.size());
+            versions.add(version);
+            expected.add(correct);
+        }
+
+        for(int i=0; i<versions.size(); i++) {
+            Assert.assertEquals(expected.get(i).toString(), versions.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testSnapshotQueue() {
+        SnapshotQueue<Integer> queue = new SnapshotQueue<>();
+        queue.addAll(new Integer[] {1, 2, 3});
+        PersistentQueue<Integer> snapshot = queue.snapshot();
+
+        Assert.assertEquals(1, (int)queue.remove());
+        queue.add(4);
+        Assert.assertEquals("[2, 3, 4]", queue.toString());
+        Assert.assertEquals("[1, 2, 3]", snapshot.toString());
+
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals(2, queue.drainTo(drained::add, 2));
+        Assert.assertEquals(List.of(2, 3), drained);
+        Assert.assertEquals(1, queue.size());
+    }
+}
@@ -0,0 +1,157 @@
+package name.brian_gordon.collections.queues;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a queue at a fixed rate and measures how long each element takes to get from the producer to a consumer.
+ *
+ * Each producer has a schedule: its i-th element is due to be sent at start + i * interval. The element carries its
+ * scheduled send time, not the time it actually got sent, and consumers record the time from then until they removed
+ * it. That's what corrects for coordinated omission. If the queue stalls a producer for a millisecond, every element
+ * that should have been sent during that millisecond gets charged for the wait, just as requests arriving at a stalled
+ * server would be. Measuring from the actual send time would quietly drop those elements from the results and make the
+ * tail look far better than it is.
+ *
+ * Run main() to print the latency distribution of each thread-safe queue implementation.
+ *
+ * @author Brian Gordon
+ */
+public class QueueLoadGenerator {
+    // Waits longer than this are parked through. Shorter ones are spun through, since parking can't wake up on time.
+    private static final long PARK_THRESHOLD_NANOS = 50_000;
+
+    private final int producers;
+    private final int consumers;
+    private final long ratePerSecond;
+    private final long durationNanos;
+
+    /**
+     * @param producers The number of producer threads. The rate is split evenly between them.
+     * @param consumers The number of consumer threads.
+     * @param ratePerSecond The total number of elements to send per second, across all producers. This must be between
+     *                      one and a billion per producer.
+     * @param durationNanos How long to keep sending.
+     */
+    public QueueLoadGenerator(int producers, int consumers, long ratePerSecond, long durationNanos) {
+        if(producers <= 0 || consumers <= 0) {
+            throw new IllegalArgumentException("There must be at least one producer and one consumer.");
+        }
+        if(ratePerSecond < producers) {
+            throw new IllegalArgumentException("Rate must be at least one element per second per producer.");
+        }
+        if(ratePerSecond > 1_000_000_000L * producers) {
+            // Producers are scheduled in whole nanoseconds, so each one can send at most one element per nanosecond.
+            throw new IllegalArgumentException("Rate can be at most one element per nanosecond per producer.");
+        }
+
+        this.producers = producers;
+        this.consumers = consumers;
+        this.ratePerSecond = ratePerSecond;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Run the load against a fresh queue from the given factory.
+     *
+     * @return The end-to-end latency of every element, in nanoseconds
+     */
+    public LatencyHistogram run(QueueFactory<Long> queueFactory) throws InterruptedException {
+        Queue<Long> queue = queueFactory.makeQueue();
+
+        long intervalNanos = 1_000_000_000L * producers / ratePerSecond;
+        long perProducer = durationNanos / intervalNanos;
+        long total = perProducer * producers;
+        AtomicLong remaining = new AtomicLong(total);
+
+        // Give the threads a moment to start before the first element is due.
+        long start = System.nanoTime() + 10_000_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for(int p=0; p<producers; p++) {
+            threads.add(new Thread(() -> {
+                for(long i=0; i<perProducer; i++) {
+                    long due = start + i * intervalNanos;
+                    waitUntil(due);
+                    while(!queue.offer(due)) {
+                        Thread.yield();
+                    }
+                }
+            }, "producer-" + p));
+        }
+
+        List<LatencyHistogram> histograms = new ArrayList<>();
+        for(int c=0; c<consumers; c++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histograms.add(histogram);
+            threads.add(new Thread(() -> {
+                while(remaining.get() > 0) {
+                    Long due = queue.remove();
+                    if(due == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    histogram.record(System.nanoTime() - due);
+                    remaining.decrementAndGet();
+                }
+            }, "consumer-" + c));
+        }
+
+        for(Thread thread : threads) {
+            thread.start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram combined = new LatencyHistogram();
+        for(LatencyHistogram histogram : histograms) {
+            combined.add(histogram);
+        }
+        return combined;
+    }
+
+    private static void waitUntil(long deadline) {
+        while(true) {
+            long remaining = deadline - System.nanoTime();
+            if(remaining <= 0) {
+                return;
+            } else if(remaining > PARK_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - PARK_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Usage: QueueLoadGenerator [producers] [consumers] [rate per second] [seconds]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int consumers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        long rate = args.length > 2 ? Long.parseLong(args[2]) : 200_000;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+
+        Map<String, QueueFactory<Long>> implementations = new LinkedHashMap<>();
+        implementations.put("SynchronizedArrayQueue", SynchronizedArrayQueue::new);
+        implementations.put("LockFreeArrayQueue", () -> new LockFreeArrayQueue<>(1 << 16));
+        implementations.put("BlockingArrayQueue", BlockingArrayQueue::new);
+        implementations.put("LockFreeLinkedQueue", LockFreeLinkedQueue::new);
+        implementations.put("StripedQueue", StripedQueue::new);
+        implementations.put("AsyncQueue", AsyncQueue::new);
+
+        QueueLoadGenerator generator = new QueueLoadGenerator(producers, consumers, rate, seconds * 1_000_000_000L);
+        System.out.printf("%d producers, %d consumers, %d elements/s for %d s. Latencies in microseconds.%n%n",
+                producers, consumers, rate, seconds);
+        for(Map.Entry<String, QueueFactory<Long>> implementation : implementations.entrySet()) {
+            LatencyHistogram histogram = generator.run(implementation.getValue());
+            histogram.printPercentiles(System.out, implementation.getKey(), 1000.0);
+            System.out.println();
+        }
+    }
+}
@@ -102,17 +102,135 @@ public class QueueTest {
         }
     }
 
+    @Test
+    public void testBatchFixed() {
+        Queue<Integer> queue = queueFactory.makeQueue();
+        queue.add(1);
+        queue.addAll(new Integer[] {2, 3, 4});
+        queue.addAll(List.of(5, 6));
+
+        Integer[] out = new Integer[4];
+        Assert.assertEquals(4, queue.drainTo(out, 4));
+        Assert.assertArrayEquals(new Integer[] {1, 2, 3, 4}, out);
+
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals(2, queue.drainTo(drained::add, 10));
+        Assert.assertEquals(List.of(5, 6), drained);
+
+        Assert.assertEquals(0, queue.drainTo(out, 4));
+        Assert.assertNull(queue.remove());
+    }
+
+    @Test(timeout = 10_000, expected = IllegalArgumentException.class)
+    public void testDrainNegative() {
+        Queue<Integer> queue = queueFactory.makeQueue();
+        queue.add(1);
+        queue.drainTo(item -> {}, -1);
+    }
+
+    /**
+     * If the consumer throws, the element it threw on has been removed, and the elements after it are still there.
+     */
+    @Test
+    public void testDrainConsumerThrows() {
+        Queue<Integer> queue = queueFactory.makeQueue();
+        queue.addAll(new Integer[] {1, 2, 3, 4});
+        try {
+            queue.drainTo(item -> {
+                if(item == 2) {
+                    throw new IllegalStateException();
+                }
+            }, 4);
+            Assert.fail();
+        } catch(IllegalStateException e) {
+            // Expected.
+        }
+
+        Assert.assertEquals(3, (Number)queue.remove());
+        Assert.assertEquals(4, (Number)queue.remove());
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * Apply randomized batch and single-element operations to the queues being tested and a known correct queue
+     * implementation, simultaneously. Batches of varying sizes make sure that runs which wrap around the end of a
+     * circular array are handled.
+     */
+    @Test
+    public void testBatchRandom() {
+        Random random = new Random();
+
+        Queue<Integer> myQueue = queueFactory.makeQueue();
+        java.util.Queue<Integer> correctQueue = new ArrayDeque<>();
+        int next = 0;
+        for(int i=0; i<500; i++) {
+            switch(random.nextInt(5)) {
+                case 0:
+                    myQueue.add(next);
+                    correctQueue.add(next++);
+                    break;
+                case 1:
+                    Assert.assertEquals(correctQueue.poll(), myQueue.remove());
+                    break;
+                case 2: {
+                    Integer[] batch = new Integer[random.nextInt(8)];
+                    for(int j=0; j<batch.length; j++) {
+                        batch[j] = next++;
+                    }
+                    myQueue.addAll(batch);
+                    correctQueue.addAll(Arrays.asList(batch));
+                    break;
+                }
+                case 3: {
+                    Integer[] out = new Integer[8];
+                    int max = random.nextInt(out.length + 1);
+                    int count = myQueue.drainTo(out, max);
+                    Assert.assertEquals(Math.min(max, correctQueue.size()), count);
+                    for(int j=0; j<count; j++) {
+                        Assert.assertEquals(correctQueue.poll(), out[j]);
+                    }
+                    break;
+                }
+                default: {
+                    List<Integer> out = new ArrayList<>();
+                    int max = random.nextInt(8);
+                    int count = myQueue.drainTo(out::add, max);
+                    Assert.assertEquals(Math.min(max, correctQueue.size()), count);
+                    for(Integer item : out) {
+                        Assert.assertEquals(correctQueue.poll(), item);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
     // We need to parameterize the JUnit test on factories rather than on actual instances, because the Parameterized
     // runner reuses the same instance for every test!
     @Parameterized.Parameters
     public static List<QueueFactory<Integer>[]> factories() {
         return List.of(
                 new QueueFactory[] {() -> new LinkedQueue<Integer>()},
+                new QueueFactory[] {() -> new LinkedQueue<Integer>(2)},
                 new QueueFactory[] {() -> new ArrayQueue<Integer>()},
                 new QueueFactory[] {() -> new ArrayQueue<Integer>(3)},
                 new QueueFactory[] {() -> new ArrayQueue<Integer>(5)},
                 new QueueFactory[] {() -> new SynchronizedArrayQueue<Integer>(3)},
-                new QueueFactory[] {() -> new SynchronizedArrayQueue<Integer>(10)}
+                new QueueFactory[] {() -> new SynchronizedArrayQueue<Integer>(10)},
+                new QueueFactory[] {() -> new LockFreeArrayQueue<Integer>()},
+                new QueueFactory[] {() -> new SpscArrayQueue<Integer>()},
+                new QueueFactory[] {() -> new BlockingArrayQueue<Integer>()},
+                new QueueFactory[] {() -> new BlockingArrayQueue<Integer>(1000)},
+                new QueueFactory[] {() -> new LockFreeLinkedQueue<Integer>()},
+                new QueueFactory[] {() -> new SegmentedArrayQueue<Integer>()},
+                new QueueFactory[] {() -> new SegmentedArrayQueue<Integer>(1, 0)},
+                new QueueFactory[] {() -> new SegmentedArrayQueue<Integer>(3)},
+                new QueueFactory[] {() -> new StripedQueue<Integer>(4)},
+                new QueueFactory[] {() -> new AsyncQueue<Integer>()},
+                new QueueFactory[] {() -> new InstrumentedQueue<Integer>(new ArrayQueue<>(), new QueueMetrics("test"), 4)},
+                new QueueFactory[] {() -> new TimingWheelQueue<Integer>()},
+                new QueueFactory[] {() -> new FairQueue<Integer, Integer>(item -> 0)},
+                new QueueFactory[] {() -> new SnapshotQueue<Integer>()}
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for RingBuffer and BatchEventProcessor.
+ *
+ * @author Brian Gordon
+ */
+public class RingBufferTest {
+    private static class LongEvent {
+        long value;
+
+        // Stamped by the first two stages of the diamond, and checked by the last.
+        long first;
+        long second;
+    }
+
+    private static Thread start(BatchEventProcessor<?> processor) {
+        Thread thread = new Thread(processor);
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitSequence(BatchEventProcessor<?> processor, long sequence) {
+        while(processor.getSequence() < sequence) {
+            Thread.yield();
+        }
+    }
+
+    @Test
+    public void testSingleProducerInOrder() throws InterruptedException {
+        // A small buffer makes the producer wrap around many times and wait for the consumer.
+        RingBuffer<LongEvent> ringBuffer = RingBuffer.singleProducer(LongEvent::new, 16, WaitStrategy.YIELDING);
+        List<Long> seen = new ArrayList<>();
+        BatchEventProcessor<LongEvent> processor = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> seen.add(event.value));
+        ringBuffer.addGatingProcessors(processor);
+        Thread thread = start(processor);
+
+        for(long i=0; i<10_000; i++) {
+            long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).value = i * 3;
+            ringBuffer.publish(sequence);
+        }
+
+        awaitSequence(processor, 9_999);
+        processor.halt();
+        thread.join();
+
+        Assert.assertEquals(10_000, seen.size());
+        for(int i=0; i<10_000; i++) {
+            Assert.assertEquals(i * 3, (long)seen.get(i));
+        }
+        Assert.assertEquals(16, ringBuffer.remainingCapacity());
+    }
+
+    /**
+     * Other threads should see a single producer's published cursor, not the sequences it has only claimed.
+     */
+    @Test
+    public void testSingleProducerCursorIsPublished() throws InterruptedException {
+        RingBuffer<LongEvent> ringBuffer = RingBuffer.singleProducer(LongEvent::new, 4, WaitStrategy.YIELDING);
+        Assert.assertEquals(-1, ringBuffer.getCursor());
+
+        long sequence = ringBuffer.next();
+        Assert.assertEquals(-1, ringBuffer.getCursor());
+        Assert.assertEquals(4, ringBuffer.remainingCapacity());
+
+        ringBuffer.publish(sequence);
+        long[] seen = new long[2];
+        Thread reader = new Thread(() -> {
+            seen[0] = ringBuffer.getCursor();
+            seen[1] = ringBuffer.remainingCapacity();
+        });
+        reader.start();
+        reader.join();
+        Assert.assertEquals(0, seen[0]);
+        Assert.assertEquals(4, seen[1]);
+    }
+
+    @Test
+    public void testBatchClaim() throws InterruptedException {
+        RingBuffer<LongEvent> ringBuffer = RingBuffer.singleProducer(LongEvent::new, 10, WaitStrategy.PARKING);
+        Assert.assertEquals(16, ringBuffer.getBufferSize());
+
+        AtomicLong sum = new AtomicLong();
+        BatchEventProcessor<LongEvent> processor = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> sum.addAndGet(event.value));
+        ringBuffer.addGatingProcessors(processor);
+        Thread thread = start(processor);
+
+        for(int batch=0; batch<100; batch++) {
+            long hi = ringBuffer.next(10);
+            for(long sequence=hi-9; sequence<=hi; sequence++) {
+                ringBuffer.get(sequence).value = sequence;
+            }
+            ringBuffer.publish(hi - 9, hi);
+        }
+
+        awaitSequence(processor, 999);
+        processor.halt();
+        thread.join();
+        Assert.assertEquals(999 * 1000 / 2, sum.get());
+    }
+
+    /**
+     * Several producers feed two independent stages, and a third stage depends on both of them. The third stage must
+     * never see an event before both of the others have stamped it.
+     */
+    @Test
+    public void testMultiProducerDiamond() throws InterruptedException {
+        final int producers = 3;
+        final int perProducer = 5_000;
+        RingBuffer<LongEvent> ringBuffer = RingBuffer.multiProducer(LongEvent::new, 64, WaitStrategy.YIELDING);
+
+        BatchEventProcessor<LongEvent> first = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> event.first = event.value);
+        BatchEventProcessor<LongEvent> second = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> event.second = event.value);
+
+        AtomicLong sum = new AtomicLong();
+        AtomicLong mismatches = new AtomicLong();
+        BatchEventProcessor<LongEvent> last = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(first, second),
+                (event, sequence, endOfBatch) -> {
+                    if(event.first != event.value || event.second != event.value) {
+                        mismatches.incrementAndGet();
+                    }
+                    sum.addAndGet(event.value);
+                });
+        ringBuffer.addGatingProcessors(last);
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(start(first));
+        threads.add(start(second));
+        threads.add(start(last));
+
+        List<Thread> producerThreads = new ArrayList<>();
+        for(int p=0; p<producers; p++) {
+            Thread producer = new Thread(() -> {
+                for(long i=1; i<=perProducer; i++) {
+                    long sequence = ringBuffer.next();
+                    ringBuffer.get(sequence).value = i;
+                    ringBuffer.publish(sequence);
+                }
+            });
+            producer.start();
+            producerThreads.add(producer);
+        }
+        for(Thread producer : producerThreads) {
+            producer.join();
+        }
+
+        awaitSequence(last, producers * perProducer - 1);
+        first.halt();
+        second.halt();
+        last.halt();
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(0, mismatches.get());
+        Assert.assertEquals((long)producers * perProducer * (perProducer + 1) / 2, sum.get());
+    }
+
+    @Test
+    public void testHandlerExceptionDoesNotStopProcessor() throws InterruptedException {
+        RingBuffer<LongEvent> ringBuffer = RingBuffer.singleProducer(LongEvent::new, 8, WaitStrategy.YIELDING);
+        AtomicLong processed = new AtomicLong();
+        BatchEventProcessor<LongEvent> processor = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> {
+                    processed.incrementAndGet();
+                    if(event.value == 2) {
+                        throw new RuntimeException("Expected by the test.");
+                    }
+                });
+        ringBuffer.addGatingProcessors(processor);
+
+        AtomicLong reported = new AtomicLong();
+        Thread thread = new Thread(processor);
+        thread.setUncaughtExceptionHandler((t, e) -> reported.incrementAndGet());
+        thread.start();
+
+        for(long i=0; i<5; i++) {
+            long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).value = i;
+            ringBuffer.publish(sequence);
+        }
+
+        awaitSequence(processor, 4);
+        processor.halt();
+        thread.join();
+        Assert.assertEquals(5, processed.get());
+        Assert.assertEquals(1, reported.get());
+        Assert.assertFalse(processor.isRunning());
+    }
+
+    /**
+     * Once warmed up, claiming and publishing events shouldn't allocate anything on the producer thread.
+     */
+    @Test
+    public void testProducerDoesNotAllocate() throws InterruptedException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)bean;
+
+        RingBuffer<LongEvent> ringBuffer = RingBuffer.multiProducer(LongEvent::new, 1024, WaitStrategy.YIELDING);
+        BatchEventProcessor<LongEvent> processor = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> {});
+        ringBuffer.addGatingProcessors(processor);
+        Thread thread = start(processor);
+
+        long threadId = Thread.currentThread().getId();
+        long before = 0;
+        for(int round=0; round<2; round++) {
+            // The first round warms things up, and only the second is measured.
+            before = threadBean.getThreadAllocatedBytes(threadId);
+            for(long i=0; i<100_000; i++) {
+                long sequence = ringBuffer.next();
+                ringBuffer.get(sequence).value = i;
+                ringBuffer.publish(sequence);
+            }
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        processor.halt();
+        thread.join();
+
+        // Leave some slack for the measurement itself, which is far less than an object per event would cost.
+        Assert.assertTrue("Allocated " + allocated + " bytes", allocated < 10_000);
+    }
+}
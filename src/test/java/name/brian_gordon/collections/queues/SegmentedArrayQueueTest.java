@@ -0,0 +1,177 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests specific to SegmentedArrayQueue.
+ *
+ * @author Brian Gordon
+ */
+public class SegmentedArrayQueueTest {
+    @Test
+    public void testShrinksAfterBurst() {
+        SegmentedArrayQueue<Integer> queue = new SegmentedArrayQueue<>(4, 2);
+        for(int i=0; i<40; i++) {
+            queue.add(i);
+        }
+        Assert.assertEquals(10, queue.chunkCount());
+
+        for(int i=0; i<40; i++) {
+            Assert.assertEquals(i, (int)queue.remove());
+        }
+        Assert.assertNull(queue.remove());
+        Assert.assertEquals(1, queue.chunkCount());
+        Assert.assertEquals(2, queue.pooledChunkCount());
+    }
+
+    @Test
+    public void testShrinksAfterBatchDrain() {
+        SegmentedArrayQueue<Integer> queue = new SegmentedArrayQueue<>(4, 2);
+        queue.addAll(new Integer[40]);
+        Assert.assertEquals(10, queue.chunkCount());
+
+        Assert.assertEquals(40, queue.drainTo(new Integer[40], 40));
+        Assert.assertEquals(1, queue.chunkCount());
+        Assert.assertEquals(2, queue.pooledChunkCount());
+    }
+
+    @Test
+    public void testPoolIsCapped() {
+        SegmentedArrayQueue<Integer> queue = new SegmentedArrayQueue<>(4, 3);
+        for(int round=0; round<3; round++) {
+            for(int i=0; i<40; i++) {
+                queue.add(i);
+            }
+            for(int i=0; i<40; i++) {
+                Assert.assertEquals(i, (int)queue.remove());
+            }
+            Assert.assertEquals(3, queue.pooledChunkCount());
+        }
+    }
+
+    @Test
+    public void testNoPooling() {
+        SegmentedArrayQueue<Integer> queue = new SegmentedArrayQueue<>(4, 0);
+        for(int round=0; round<3; round++) {
+            for(int i=0; i<40; i++) {
+                queue.add(i);
+            }
+            for(int i=0; i<40; i++) {
+                Assert.assertEquals(i, (int)queue.remove());
+                Assert.assertEquals(0, queue.pooledChunkCount());
+            }
+            Assert.assertNull(queue.remove());
+            Assert.assertEquals(1, queue.chunkCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePoolSize() {
+        new SegmentedArrayQueue<Integer>(4, -1);
+    }
+
+    /**
+     * A second burst should take its chunks from the pool, and should only ever see its own elements in them.
+     */
+    @Test
+    public void testPooledChunksAreReused() {
+        SegmentedArrayQueue<Integer> queue = new SegmentedArrayQueue<>(4, 2);
+        for(int i=0; i<12; i++) {
+            queue.add(i);
+        }
+        for(int i=0; i<12; i++) {
+            queue.remove();
+        }
+        Assert.assertEquals(2, queue.pooledChunkCount());
+
+        // Only partly fill the reused chunks, so that any leftovers from the first burst would be read back.
+        for(int i=100; i<110; i++) {
+            queue.add(i);
+        }
+        Assert.assertEquals(0, queue.pooledChunkCount());
+        Assert.assertEquals(3, queue.chunkCount());
+
+        Integer[] drained = new Integer[12];
+        Assert.assertEquals(10, queue.drainTo(drained, 12));
+        for(int i=0; i<10; i++) {
+            Assert.assertEquals(100 + i, (int)drained[i]);
+        }
+        Assert.assertNull(drained[10]);
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * Removed elements shouldn't stay reachable from the queue, whether their chunk is still linked or in the pool.
+     */
+    @Test
+    public void testNoStaleReferences() throws InterruptedException {
+        SegmentedArrayQueue<Object> queue = new SegmentedArrayQueue<>(4, 2);
+        List<WeakReference<Object>> removed = new ArrayList<>();
+        for(int i=0; i<10; i++) {
+            Object item = new Object();
+            removed.add(new WeakReference<>(item));
+            queue.add(item);
+        }
+
+        queue.remove();
+        queue.drainTo(item -> {}, 4);
+        queue.drainTo(new Object[5], 5);
+        Assert.assertEquals(2, queue.pooledChunkCount());
+
+        for(int attempt=0; attempt<50 && !allCleared(removed); attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(allCleared(removed));
+    }
+
+    private static boolean allCleared(List<WeakReference<Object>> references) {
+        for(WeakReference<Object> reference : references) {
+            if(reference.get() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Batches which start partway through a chunk and span several chunks should keep every element in order.
+     */
+    @Test
+    public void testBatchesAcrossChunks() {
+        SegmentedArrayQueue<Integer> queue = new SegmentedArrayQueue<>(4, 2);
+        queue.add(0);
+        queue.add(1);
+        queue.add(2);
+
+        Integer[] items = new Integer[10];
+        for(int i=0; i<items.length; i++) {
+            items[i] = 3 + i;
+        }
+        queue.addAll(items);
+        queue.add(13);
+        Assert.assertEquals(4, queue.chunkCount());
+
+        Assert.assertEquals(0, (int)queue.remove());
+
+        Integer[] drained = new Integer[7];
+        Assert.assertEquals(7, queue.drainTo(drained, 7));
+        for(int i=0; i<7; i++) {
+            Assert.assertEquals(1 + i, (int)drained[i]);
+        }
+
+        List<Integer> rest = new ArrayList<>();
+        Assert.assertEquals(5, queue.drainTo(rest::add, 5));
+        Assert.assertEquals(List.of(8, 9, 10, 11, 12), rest);
+
+        Assert.assertEquals(1, queue.drainTo(rest::add, 100));
+        Assert.assertEquals(13, (int)rest.get(5));
+        Assert.assertNull(queue.remove());
+        Assert.assertEquals(1, queue.chunkCount());
+    }
+}
@@ -0,0 +1,150 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Tests specific to SpillingQueue.
+ *
+ * @author Brian Gordon
+ */
+public class SpillingQueueTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSpillsWhenMemoryIsFull() throws IOException {
+        try(SpillingQueue<Long> queue = new SpillingQueue<>(folder.getRoot().toPath(), Codec.LONGS, 4, 64)) {
+            for(long i=0; i<10; i++) {
+                queue.add(i);
+            }
+            Assert.assertEquals(10, queue.size());
+            Assert.assertEquals(6, queue.spilled());
+
+            // Removing from memory doesn't let new elements jump ahead of the spilled ones.
+            Assert.assertEquals(0, (long)queue.remove());
+            queue.add(10L);
+            Assert.assertEquals(7, queue.spilled());
+
+            for(long i=1; i<=10; i++) {
+                Assert.assertEquals(i, (long)queue.remove());
+            }
+            Assert.assertNull(queue.remove());
+            Assert.assertEquals(0, queue.spilled());
+
+            // With the disk empty again, new elements go back into memory.
+            queue.addAll(new Long[] {11L, 12L, 13L, 14L, 15L});
+            Assert.assertEquals(1, queue.spilled());
+        }
+    }
+
+    /**
+     * Use a small ring and tiny spill files so that elements cross the memory/disk boundary constantly, and compare
+     * against a known correct queue implementation.
+     */
+    @Test
+    public void testRandom() throws IOException {
+        Random random = new Random(1);
+        try(SpillingQueue<String> queue = new SpillingQueue<>(folder.getRoot().toPath(), Codec.UTF_8, 8, 64)) {
+            java.util.Queue<String> correctQueue = new ArrayDeque<>();
+            for(int i=0; i<5000; i++) {
+                if(random.nextInt(5) < 3) {
+                    String item = "x".repeat(random.nextInt(10)) + i;
+                    queue.add(item);
+                    correctQueue.add(item);
+                } else {
+                    Assert.assertEquals(correctQueue.poll(), queue.remove());
+                }
+                Assert.assertEquals(correctQueue.size(), queue.size());
+            }
+            while(!correctQueue.isEmpty()) {
+                Assert.assertEquals(correctQueue.poll(), queue.remove());
+            }
+            Assert.assertNull(queue.remove());
+        }
+    }
+
+    @Test
+    public void testCloseDeletesSpillFiles() throws IOException {
+        Path parent = folder.getRoot().toPath();
+        SpillingQueue<Long> queue = new SpillingQueue<>(parent, Codec.LONGS, 1, 64);
+        for(long i=0; i<100; i++) {
+            queue.add(i);
+        }
+        queue.close();
+
+        try(Stream<Path> files = Files.list(parent)) {
+            Assert.assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * If a spilled element can't be decoded, the elements moved into memory before it must no longer count as spilled.
+     */
+    @Test
+    public void testRefillFailure() throws IOException {
+        boolean[] fail = {true};
+        Codec<Long> codec = new Codec<>() {
+            @Override
+            public int encodedLength(Long data) {
+                return Codec.LONGS.encodedLength(data);
+            }
+
+            @Override
+            public void encode(Long data, ByteBuffer target) {
+                Codec.LONGS.encode(data, target);
+            }
+
+            @Override
+            public Long decode(ByteBuffer source) {
+                Long ret = Codec.LONGS.decode(source);
+                if(ret == 6 && fail[0]) {
+                    throw new IllegalStateException("Deliberate.");
+                }
+                return ret;
+            }
+        };
+
+        try(SpillingQueue<Long> queue = new SpillingQueue<>(folder.getRoot().toPath(), codec, 4, 64)) {
+            for(long i=0; i<10; i++) {
+                queue.add(i);
+            }
+            for(long i=0; i<4; i++) {
+                Assert.assertEquals(i, (long)queue.remove());
+            }
+
+            try {
+                queue.remove();
+                Assert.fail();
+            } catch(IllegalStateException e) {
+                // Expected.
+            }
+            Assert.assertEquals(6, queue.size());
+            Assert.assertEquals(4, queue.spilled());
+
+            fail[0] = false;
+            for(long i=4; i<10; i++) {
+                Assert.assertEquals(i, (long)queue.remove());
+            }
+            Assert.assertEquals(0, queue.size());
+            Assert.assertNull(queue.remove());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() throws IOException {
+        SpillingQueue<Long> queue = new SpillingQueue<>(folder.getRoot().toPath(), Codec.LONGS, 1, 64);
+        queue.close();
+        queue.remove();
+    }
+}
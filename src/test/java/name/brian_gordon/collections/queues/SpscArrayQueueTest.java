@@ -0,0 +1,94 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests specific to SpscArrayQueue.
+ *
+ * @author Brian Gordon
+ */
+public class SpscArrayQueueTest {
+    private static final int ELEMENTS = 1_000_000;
+
+    @Test
+    public void testFull() {
+        Queue<Integer> queue = new SpscArrayQueue<>(4);
+        for(int i=0; i<4; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        Assert.assertFalse(queue.offer(4));
+
+        Assert.assertEquals(0, (Number)queue.remove());
+        Assert.assertTrue(queue.offer(4));
+        Assert.assertFalse(queue.offer(5));
+    }
+
+    @Test(timeout = 10_000, expected = IllegalArgumentException.class)
+    public void testDrainNegative() {
+        Queue<Integer> queue = new SpscArrayQueue<>(4);
+        queue.add(1);
+        queue.drainTo(item -> {}, -1);
+    }
+
+    /**
+     * A consumer which throws keeps the element it threw on, and everything after it stays in the queue.
+     */
+    @Test
+    public void testDrainConsumerThrows() {
+        Queue<Integer> queue = new SpscArrayQueue<>(8);
+        queue.addAll(new Integer[] {1, 2, 3, 4});
+        try {
+            queue.drainTo(item -> {
+                if(item == 2) {
+                    throw new IllegalStateException();
+                }
+            }, 4);
+            Assert.fail();
+        } catch(IllegalStateException e) {
+            // Expected.
+        }
+
+        Assert.assertEquals(3, (Number)queue.remove());
+        Assert.assertEquals(4, (Number)queue.remove());
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * Stream many elements from one producer thread to one consumer thread through a small ring, and make sure they all
+     * arrive in order.
+     */
+    @Test(timeout = 30_000)
+    public void testOneProducerOneConsumer() throws InterruptedException {
+        Queue<Integer> queue = new SpscArrayQueue<>(64);
+        AtomicReference<AssertionError> failure = new AtomicReference<>();
+
+        Thread consumer = new Thread(() -> {
+            for(int expected=0; expected<ELEMENTS; expected++) {
+                Integer result;
+                while((result = queue.remove()) == null) {
+                    Thread.yield();
+                }
+                if(result != expected) {
+                    failure.set(new AssertionError("Expected " + expected + " but got " + result));
+                    return;
+                }
+            }
+        });
+        consumer.start();
+
+        for(int i=0; i<ELEMENTS; i++) {
+            while(!queue.offer(i)) {
+                Thread.yield();
+            }
+        }
+
+        consumer.join();
+        if(failure.get() != null) {
+            throw failure.get();
+        }
+        Assert.assertNull(queue.remove());
+    }
+}
@@ -0,0 +1,117 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests specific to StripedQueue.
+ *
+ * @author Brian Gordon
+ */
+public class StripedQueueTest {
+    @Test
+    public void testLaneCountRoundsUpToPowerOfTwo() {
+        Assert.assertEquals(1, new StripedQueue<Integer>(1).lanes());
+        Assert.assertEquals(8, new StripedQueue<Integer>(5).lanes());
+    }
+
+    /**
+     * Elements added by other threads land in other lanes. This thread should still find all of them by stealing, and
+     * the elements from each producer should come out in the order they were added.
+     */
+    @Test
+    public void testStealsFromOtherLanes() throws InterruptedException {
+        Queue<Integer> queue = new StripedQueue<>(4);
+
+        List<Thread> producers = new ArrayList<>();
+        for(int p=0; p<4; p++) {
+            final int producer = p;
+            producers.add(new Thread(() -> {
+                for(int i=0; i<100; i++) {
+                    queue.add(i * 4 + producer);
+                }
+            }));
+        }
+        for(Thread producer : producers) {
+            producer.start();
+        }
+        for(Thread producer : producers) {
+            producer.join();
+        }
+
+        int[] last = {-1, -1, -1, -1};
+        for(int i=0; i<400; i++) {
+            Integer item = queue.remove();
+            Assert.assertNotNull(item);
+            Assert.assertTrue(item > last[item % 4]);
+            last[item % 4] = item;
+        }
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * Several consumers steal from each other's lanes while producers are still adding. Every element should be removed
+     * exactly once, and each consumer should see each producer's elements in the order they were added.
+     */
+    @Test(timeout = 60_000)
+    public void testManyConsumers() throws InterruptedException {
+        final int threads = 4;
+        final int perProducer = 20_000;
+        Queue<Integer> queue = new StripedQueue<>(threads);
+        AtomicIntegerArray seen = new AtomicIntegerArray(threads * perProducer);
+        AtomicInteger remaining = new AtomicInteger(threads * perProducer);
+        AtomicReference<AssertionError> failure = new AtomicReference<>();
+
+        List<Thread> all = new ArrayList<>();
+        for(int p=0; p<threads; p++) {
+            final int producer = p;
+            all.add(new Thread(() -> {
+                for(int i=0; i<perProducer; i++) {
+                    queue.add(i * threads + producer);
+                }
+            }));
+        }
+        for(int c=0; c<threads; c++) {
+            all.add(new Thread(() -> {
+                int[] last = new int[threads];
+                Arrays.fill(last, -1);
+                try {
+                    while(remaining.get() > 0 && failure.get() == null) {
+                        Integer item = queue.remove();
+                        if(item == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        Assert.assertEquals(0, seen.getAndIncrement(item));
+                        Assert.assertTrue(item > last[item % threads]);
+                        last[item % threads] = item;
+                        remaining.decrementAndGet();
+                    }
+                } catch(AssertionError e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for(Thread thread : all) {
+            thread.start();
+        }
+        for(Thread thread : all) {
+            thread.join();
+        }
+
+        if(failure.get() != null) {
+            throw failure.get();
+        }
+        for(int i=0; i<seen.length(); i++) {
+            Assert.assertEquals(1, seen.get(i));
+        }
+        Assert.assertNull(queue.remove());
+    }
+}
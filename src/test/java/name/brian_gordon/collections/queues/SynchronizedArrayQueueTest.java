@@ -3,8 +3,12 @@ package name.brian_gordon.collections.queues;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.Spliterator;
 
 /**
  * Tests specific to SynchronizedArrayQueue.
@@ -33,4 +37,85 @@ public class SynchronizedArrayQueueTest {
             Assert.assertEquals(myQueue.toString(), correctQueue.toString());
         }
     }
+
+    /**
+     * Removed elements shouldn't stay reachable through the queue's array until their slot is reused.
+     */
+    @Test
+    public void testRemoveClearsSlot() throws InterruptedException {
+        SynchronizedArrayQueue<Object> queue = new SynchronizedArrayQueue<>();
+        Object item = new Object();
+        WeakReference<Object> removed = new WeakReference<>(item);
+        queue.add(item);
+        queue.add(new Object());
+        Assert.assertSame(item, queue.remove());
+        item = null;
+
+        for(int attempt=0; attempt<50 && removed.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull(removed.get());
+    }
+
+    /**
+     * The spliterator itself walks a live queue, so it can't be sized, but each batch it splits off is a fixed copy of
+     * known size.
+     */
+    @Test
+    public void testSpliteratorCharacteristics() {
+        SynchronizedArrayQueue<Integer> queue = new SynchronizedArrayQueue<>();
+        for(int i=0; i<SynchronizedArrayQueue.ITERATION_BATCH + 10; i++) {
+            queue.add(i);
+        }
+
+        Spliterator<Integer> spliterator = queue.spliterator();
+        Assert.assertEquals(Spliterator.ORDERED | Spliterator.CONCURRENT, spliterator.characteristics());
+        Assert.assertEquals(SynchronizedArrayQueue.ITERATION_BATCH + 10, spliterator.estimateSize());
+
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Assert.assertEquals(Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED,
+                prefix.characteristics());
+        Assert.assertEquals(SynchronizedArrayQueue.ITERATION_BATCH, prefix.getExactSizeIfKnown());
+        Assert.assertEquals(10, spliterator.estimateSize());
+        Assert.assertEquals(-1, spliterator.getExactSizeIfKnown());
+
+        List<Integer> rest = new ArrayList<>();
+        spliterator.forEachRemaining(rest::add);
+        Assert.assertEquals(10, rest.size());
+        Assert.assertEquals(SynchronizedArrayQueue.ITERATION_BATCH, (int)rest.get(0));
+    }
+
+    /**
+     * Each batch carries on from where the last one stopped. Elements removed in between are skipped, and elements
+     * added in between are seen.
+     */
+    @Test
+    public void testSpliteratorAcrossBatches() {
+        int batch = SynchronizedArrayQueue.ITERATION_BATCH;
+        SynchronizedArrayQueue<Integer> queue = new SynchronizedArrayQueue<>();
+        for(int i=0; i<3 * batch; i++) {
+            queue.add(i);
+        }
+
+        Spliterator<Integer> spliterator = queue.spliterator();
+        List<Integer> seen = new ArrayList<>();
+        Assert.assertTrue(spliterator.tryAdvance(seen::add));
+
+        // The rest of the first batch has already been copied out, but the start of the second batch hasn't.
+        for(int i=0; i<batch + 10; i++) {
+            queue.remove();
+        }
+        queue.add(3 * batch);
+        spliterator.forEachRemaining(seen::add);
+
+        List<Integer> expected = new ArrayList<>();
+        for(int i=0; i<batch; i++) {
+            expected.add(i);
+        }
+        for(int i=batch + 10; i<=3 * batch; i++) {
+            expected.add(i);
+        }
+        Assert.assertEquals(expected, seen);
+    }
 }
@@ -0,0 +1,158 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests specific to TimingWheelQueue. The queue's clock is driven by hand, in nanoseconds.
+ *
+ * @author Brian Gordon
+ */
+public class TimingWheelQueueTest {
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    private TimingWheelQueue<String> makeQueue() {
+        return new TimingWheelQueue<>(10, TimeUnit.NANOSECONDS, now::get);
+    }
+
+    @Test
+    public void testExpiresInOrder() {
+        TimingWheelQueue<String> queue = makeQueue();
+        queue.schedule("c", 300, TimeUnit.NANOSECONDS);
+        queue.schedule("a", 100, TimeUnit.NANOSECONDS);
+        queue.schedule("b", 200, TimeUnit.NANOSECONDS);
+        Assert.assertEquals(3, queue.size());
+        Assert.assertNull(queue.remove());
+
+        now.addAndGet(99);
+        Assert.assertNull(queue.remove());
+        now.addAndGet(1);
+        Assert.assertEquals("a", queue.remove());
+        Assert.assertNull(queue.remove());
+
+        now.addAndGet(1_000);
+        Assert.assertEquals("b", queue.remove());
+        Assert.assertEquals("c", queue.remove());
+        Assert.assertNull(queue.remove());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheelQueue<String> queue = makeQueue();
+        TimingWheelQueue.Timeout<String> cancelled = queue.schedule("cancelled", 50, TimeUnit.NANOSECONDS);
+        TimingWheelQueue.Timeout<String> kept = queue.schedule("kept", 50, TimeUnit.NANOSECONDS);
+
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertFalse(cancelled.cancel());
+        Assert.assertEquals(1, queue.size());
+
+        now.addAndGet(50);
+        Assert.assertEquals("kept", queue.remove());
+        Assert.assertFalse(kept.cancel());
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * A delay too big to represent in nanoseconds must saturate at the far future, not wrap around into the past.
+     */
+    @Test
+    public void testHugeDelay() {
+        TimingWheelQueue<String> queue = makeQueue();
+        now.addAndGet(1_000);
+        queue.schedule("never", Long.MAX_VALUE, TimeUnit.DAYS);
+        queue.schedule("soon", 10, TimeUnit.NANOSECONDS);
+
+        now.addAndGet(1_000_000);
+        Assert.assertEquals("soon", queue.remove());
+        Assert.assertNull(queue.remove());
+        Assert.assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testCancelAfterExpiry() {
+        TimingWheelQueue<String> queue = makeQueue();
+        TimingWheelQueue.Timeout<String> removed = queue.schedule("removed", 10, TimeUnit.NANOSECONDS);
+        now.addAndGet(1_000);
+        Assert.assertEquals(1, queue.drainExpired(item -> {}));
+        Assert.assertFalse(removed.cancel());
+
+        // An element which has expired but hasn't been removed yet can still be cancelled.
+        TimingWheelQueue.Timeout<String> expired = queue.schedule("expired", 10, TimeUnit.NANOSECONDS);
+        now.addAndGet(1_000);
+        Assert.assertEquals(0, queue.drainTo(item -> {}, 0));
+        Assert.assertTrue(expired.cancel());
+        Assert.assertNull(queue.remove());
+    }
+
+    /**
+     * Schedule timers with delays spread over many levels of the wheel, then advance the clock in uneven steps while
+     * scheduling more. Every element should come out in the first drain after its deadline, and never before.
+     */
+    @Test
+    public void testRandomDelays() {
+        Random random = new Random(1);
+        TimingWheelQueue<String> queue = makeQueue();
+        Map<String, Long> deadlines = new HashMap<>();
+        Map<String, TimingWheelQueue.Timeout<String>> timeouts = new HashMap<>();
+
+        for(int i=0; i<10000; i++) {
+            if(i >= 5000 && i % 10 == 0) {
+                now.addAndGet((long)Math.pow(10, random.nextDouble() * 7));
+                drainAndCheck(queue, deadlines);
+            }
+
+            long delay = (long)Math.pow(10, random.nextDouble() * 9);
+            String name = "t" + i;
+            timeouts.put(name, queue.schedule(name, delay, TimeUnit.NANOSECONDS));
+            deadlines.put(name, now.get() + delay);
+
+            if(random.nextInt(10) == 0) {
+                String victim = "t" + random.nextInt(i + 1);
+                if(timeouts.get(victim).cancel()) {
+                    deadlines.remove(victim);
+                }
+            }
+        }
+
+        while(!deadlines.isEmpty()) {
+            now.addAndGet((long)Math.pow(10, random.nextDouble() * 7));
+            drainAndCheck(queue, deadlines);
+        }
+
+        Assert.assertEquals(0, queue.size());
+        Assert.assertNull(queue.remove());
+    }
+
+    private void drainAndCheck(TimingWheelQueue<String> queue, Map<String, Long> deadlines) {
+        List<String> expired = new ArrayList<>();
+        queue.drainExpired(expired::add);
+        for(String name : expired) {
+            long deadline = deadlines.remove(name);
+            Assert.assertTrue(deadline <= now.get());
+        }
+
+        // Anything more than a tick overdue should have come out.
+        for(long deadline : deadlines.values()) {
+            Assert.assertTrue(deadline > now.get() - 10);
+        }
+    }
+
+    @Test
+    public void testAddIsImmediate() {
+        TimingWheelQueue<String> queue = makeQueue();
+        queue.schedule("later", 1, TimeUnit.SECONDS);
+        queue.add("now");
+        Assert.assertEquals("now", queue.remove());
+        Assert.assertNull(queue.remove());
+        Assert.assertEquals(1, queue.size());
+    }
+}
@@ -0,0 +1,95 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tests for WorkStealingDeque.
+ *
+ * @author Brian Gordon
+ */
+public class WorkStealingDequeTest {
+    @Test
+    public void testOwnerIsLifoAndThievesAreFifo() {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>(2);
+        Assert.assertNull(deque.pop());
+        Assert.assertNull(deque.steal());
+
+        // Push enough to make the deque grow a few times.
+        for(int i=0; i<10; i++) {
+            deque.push(i);
+        }
+        Assert.assertEquals(10, deque.size());
+
+        Assert.assertEquals(9, (int)deque.pop());
+        Assert.assertEquals(0, (int)deque.steal());
+        Assert.assertEquals(8, (int)deque.pop());
+        Assert.assertEquals(1, (int)deque.steal());
+        for(int i=7; i>=2; i--) {
+            Assert.assertEquals(i, (int)deque.pop());
+        }
+        Assert.assertNull(deque.pop());
+        Assert.assertNull(deque.steal());
+        Assert.assertTrue(deque.isEmpty());
+    }
+
+    /**
+     * The owner pushes and pops while several thieves steal. Every element should be taken by exactly one thread.
+     */
+    @Test
+    public void testConcurrentSteals() throws InterruptedException {
+        final int elements = 100_000;
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>(4);
+        AtomicIntegerArray taken = new AtomicIntegerArray(elements);
+        AtomicBoolean done = new AtomicBoolean(false);
+
+        List<Thread> thieves = new ArrayList<>();
+        for(int i=0; i<3; i++) {
+            thieves.add(new Thread(() -> {
+                while(!done.get() || !deque.isEmpty()) {
+                    Integer item = deque.steal();
+                    if(item == null) {
+                        Thread.yield();
+                    } else {
+                        taken.incrementAndGet(item);
+                    }
+                }
+            }));
+        }
+        for(Thread thief : thieves) {
+            thief.start();
+        }
+
+        for(int i=0; i<elements; i++) {
+            deque.push(i);
+            if(i % 3 == 0) {
+                Integer item = deque.pop();
+                if(item != null) {
+                    taken.incrementAndGet(item);
+                }
+            }
+        }
+        Integer item;
+        while((item = deque.pop()) != null) {
+            taken.incrementAndGet(item);
+        }
+        done.set(true);
+
+        for(Thread thief : thieves) {
+            thief.join();
+        }
+        for(int i=0; i<elements; i++) {
+            Assert.assertEquals("Element " + i, 1, taken.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNull() {
+        new WorkStealingDeque<Integer>().push(null);
+    }
+}
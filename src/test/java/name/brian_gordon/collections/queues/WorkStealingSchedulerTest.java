@@ -0,0 +1,124 @@
+package name.brian_gordon.collections.queues;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for WorkStealingScheduler.
+ *
+ * @author Brian Gordon
+ */
+public class WorkStealingSchedulerTest {
+    /**
+     * Each task forks two more until the tree is deep enough, so almost every task is pushed from inside a worker.
+     */
+    @Test
+    public void testForkedTasks() throws InterruptedException {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(4);
+        final int depth = 12;
+        CountDownLatch leaves = new CountDownLatch(1 << depth);
+
+        scheduler.execute(new Runnable() {
+            private void fork(int level) {
+                if(level == depth) {
+                    leaves.countDown();
+                    return;
+                }
+                scheduler.execute(() -> fork(level + 1));
+                scheduler.execute(() -> fork(level + 1));
+            }
+
+            @Override
+            public void run() {
+                fork(0);
+            }
+        });
+
+        Assert.assertTrue(leaves.await(10, TimeUnit.SECONDS));
+        scheduler.shutdown();
+        Assert.assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExternalTasksAndShutdown() throws InterruptedException {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(3);
+        AtomicInteger ran = new AtomicInteger();
+        for(int i=0; i<10_000; i++) {
+            scheduler.execute(ran::incrementAndGet);
+        }
+
+        // Every task submitted before shutdown() should still run.
+        scheduler.shutdown();
+        Assert.assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(10_000, ran.get());
+
+        try {
+            scheduler.execute(ran::incrementAndGet);
+            Assert.fail("Expected the task to be rejected.");
+        } catch(RejectedExecutionException e) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Submit from several threads while the scheduler shuts down. Every task which wasn't rejected must still run.
+     */
+    @Test(timeout = 60_000)
+    public void testShutdownRace() throws InterruptedException {
+        for(int round=0; round<50; round++) {
+            WorkStealingScheduler scheduler = new WorkStealingScheduler(2);
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger ran = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(2);
+
+            Thread[] submitters = new Thread[2];
+            for(int i=0; i<submitters.length; i++) {
+                submitters[i] = new Thread(() -> {
+                    started.countDown();
+                    try {
+                        while(true) {
+                            scheduler.execute(ran::incrementAndGet);
+                            accepted.incrementAndGet();
+                        }
+                    } catch(RejectedExecutionException e) {
+                        // Expected once shutdown() has been called.
+                    }
+                });
+                submitters[i].start();
+            }
+
+            started.await();
+            Thread.yield();
+            scheduler.shutdown();
+            for(Thread submitter : submitters) {
+                submitter.join();
+            }
+            Assert.assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+            Assert.assertEquals(accepted.get(), ran.get());
+        }
+    }
+
+    @Test
+    public void testWorkerSurvivesException() throws InterruptedException {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(1);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {});
+        try {
+            scheduler.execute(() -> {
+                throw new IllegalStateException("Deliberate.");
+            });
+            scheduler.execute(ran::countDown);
+            Assert.assertTrue(ran.await(10, TimeUnit.SECONDS));
+        } finally {
+            scheduler.shutdown();
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+    }
+}
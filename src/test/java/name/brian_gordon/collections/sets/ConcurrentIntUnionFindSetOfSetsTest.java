@@ -0,0 +1,89 @@
+package name.brian_gordon.collections.sets;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentIntUnionFindSetOfSetsTest {
+	@Test
+	public void testSingleThreaded() {
+		var sos = new ConcurrentIntUnionFindSetOfSets(10);
+		sos.add(3);
+		sos.add(7);
+		sos.add(9);
+		assertFalse(sos.contains(4));
+		assertFalse(sos.isCommonSet(3, 7));
+		sos.union(3, 7);
+		assertTrue(sos.isCommonSet(7, 3));
+		assertFalse(sos.isCommonSet(3, 9));
+		sos.union(9, 3);
+		assertTrue(sos.isCommonSet(7, 9));
+		assertEquals(sos.find(3), sos.find(9));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddOutsideCapacity() {
+		new ConcurrentIntUnionFindSetOfSets(10).add(10);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAddTwice() {
+		ConcurrentIntUnionFindSetOfSets.singletons(2).add(1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMissingKey() {
+		new ConcurrentIntUnionFindSetOfSets(10).isCommonSet(1, 2);
+	}
+
+	/**
+	 * Several threads make random unions at once, while querying pairs they've already joined. The final partition
+	 * should match the one that IntUnionFindSetOfSets produces from the same unions.
+	 */
+	@Test
+	public void testConcurrentUnions() throws InterruptedException {
+		final int count = 20_000;
+		final int threadCount = 4;
+		final int unionsPerThread = 3_000;
+		var sos = ConcurrentIntUnionFindSetOfSets.singletons(count);
+		var reference = IntUnionFindSetOfSets.singletons(count);
+
+		Random random = new Random(1);
+		int[][] edges = new int[threadCount * unionsPerThread][];
+		for (int i = 0; i < edges.length; i++) {
+			edges[i] = new int[] {random.nextInt(count), random.nextInt(count)};
+			reference.union(edges[i][0], edges[i][1]);
+		}
+
+		var failures = new AtomicInteger();
+		var threads = new ArrayList<Thread>();
+		for (int t = 0; t < threadCount; t++) {
+			final int first = t * unionsPerThread;
+			threads.add(new Thread(() -> {
+				for (int i = first; i < first + unionsPerThread; i++) {
+					sos.union(edges[i][0], edges[i][1]);
+					if (!sos.isCommonSet(edges[i][1], edges[i][0])) {
+						failures.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(0, failures.get());
+
+		// Each partition must refine the other, so they're equal.
+		for (int i = 0; i < count; i++) {
+			assertTrue(sos.isCommonSet(i, reference.find(i)));
+			assertTrue(reference.isCommonSet(i, sos.find(i)));
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package name.brian_gordon.collections.sets;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class IntUnionFindSetOfSetsTest {
+	@Test
+	public void testSingletons() {
+		var sos = IntUnionFindSetOfSets.singletons(3);
+		assertFalse(sos.isCommonSet(0, 2));
+		sos.union(0, 2);
+		assertTrue(sos.isCommonSet(0, 2));
+		assertFalse(sos.isCommonSet(1, 2));
+	}
+
+	@Test
+	public void testAddGrows() {
+		var sos = new IntUnionFindSetOfSets(0);
+		sos.add(1000);
+		sos.add(3);
+		assertTrue(sos.contains(1000));
+		assertFalse(sos.contains(999));
+		sos.union(3, 1000);
+		assertTrue(sos.isCommonSet(1000, 3));
+		assertEquals(sos.find(3), sos.find(1000));
+	}
+
+	@Test
+	public void testBoxed() {
+		SetOfSets<Integer> sos = new IntUnionFindSetOfSets();
+		sos.add(500);
+		sos.add(600);
+		assertFalse(sos.isCommonSet(500, 600));
+		sos.union(500, 600);
+		assertTrue(sos.isCommonSet(500, 600));
+	}
+
+	/**
+	 * Make the same random unions as UnionFindSetOfSets, and check that both agree on every pair.
+	 */
+	@Test
+	public void testAgreesWithUnionFindSetOfSets() {
+		Random random = new Random(1);
+		int count = 200;
+		var sos = IntUnionFindSetOfSets.singletons(count);
+		var reference = new UnionFindSetOfSets<Integer>();
+		for (int i = 0; i < count; i++) {
+			reference.add(i);
+		}
+
+		for (int i = 0; i < 150; i++) {
+			int a = random.nextInt(count);
+			int b = random.nextInt(count);
+			sos.union(a, b);
+			reference.union(a, b);
+		}
+
+		for (int a = 0; a < count; a++) {
+			for (int b = 0; b < count; b++) {
+				assertEquals(reference.isCommonSet(a, b), sos.isCommonSet(a, b));
+			}
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAddTwice() {
+		var sos = IntUnionFindSetOfSets.singletons(2);
+		sos.add(1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddNegative() {
+		new IntUnionFindSetOfSets().add(-1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMissingKey() {
+		var sos = IntUnionFindSetOfSets.singletons(2);
+		sos.union(1, 2);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMissingNull() {
+		SetOfSets<Integer> sos = IntUnionFindSetOfSets.singletons(2);
+		sos.isCommonSet(1, null);
+	}
+}